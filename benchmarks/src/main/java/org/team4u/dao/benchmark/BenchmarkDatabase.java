@@ -0,0 +1,71 @@
+package org.team4u.dao.benchmark;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import org.team4u.dao.core.SimpleDao;
+import org.team4u.sql.builder.Sql;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于HSQLDB内存数据库的测试环境
+ *
+ * @author Jay Wu
+ */
+public class BenchmarkDatabase {
+
+    private final DruidDataSource dataSource;
+
+    private final SimpleDao dao;
+
+    public BenchmarkDatabase(String name) {
+        dataSource = new DruidDataSource();
+        dataSource.setUrl("jdbc:hsqldb:mem:" + name);
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setInitialSize(1);
+        dataSource.setMaxActive(4);
+
+        dao = new SimpleDao(dataSource);
+        dao.execute(new Sql().setContent("CREATE TABLE bench_entity (\n" +
+                "  id bigint NOT NULL PRIMARY KEY,\n" +
+                "  name varchar(150) DEFAULT NULL,\n" +
+                "  age integer DEFAULT 0,\n" +
+                "  score double DEFAULT NULL,\n" +
+                "  remark varchar(150) DEFAULT NULL,\n" +
+                "  create_time timestamp DEFAULT NULL\n" +
+                ");"));
+    }
+
+    public static List<BenchmarkEntity> createEntities(long startId, int count) {
+        List<BenchmarkEntity> entities = new ArrayList<BenchmarkEntity>(count);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        for (int i = 0; i < count; i++) {
+            long id = startId + i;
+            entities.add(new BenchmarkEntity()
+                    .setId(id)
+                    .setName("name" + (id % 10))
+                    .setAge((int) (id % 100))
+                    .setScore(id * 0.5d)
+                    .setRemark(id % 2 == 0 ? null : "remark" + id)
+                    .setCreateTime(now));
+        }
+
+        return entities;
+    }
+
+    public void clear() {
+        dao.execute(new Sql().setContent("DELETE FROM bench_entity"));
+    }
+
+    public void close() {
+        dao.execute(new Sql().setContent("DROP TABLE bench_entity"));
+        dataSource.close();
+    }
+
+    public SimpleDao getDao() {
+        return dao;
+    }
+}
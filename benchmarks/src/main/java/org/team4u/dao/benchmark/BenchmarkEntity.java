@@ -0,0 +1,87 @@
+package org.team4u.dao.benchmark;
+
+import org.team4u.sql.builder.entity.annotation.Column;
+import org.team4u.sql.builder.entity.annotation.Id;
+import org.team4u.sql.builder.entity.annotation.Table;
+
+import java.sql.Timestamp;
+
+/**
+ * @author Jay Wu
+ */
+@Table(name = "bench_entity")
+public class BenchmarkEntity {
+
+    @Id
+    @Column
+    private Long id;
+
+    @Column
+    private String name;
+
+    @Column
+    private int age;
+
+    @Column
+    private Double score;
+
+    @Column
+    private String remark;
+
+    @Column
+    private Timestamp createTime;
+
+    public Long getId() {
+        return id;
+    }
+
+    public BenchmarkEntity setId(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BenchmarkEntity setName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public BenchmarkEntity setAge(int age) {
+        this.age = age;
+        return this;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public BenchmarkEntity setScore(Double score) {
+        this.score = score;
+        return this;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+
+    public BenchmarkEntity setRemark(String remark) {
+        this.remark = remark;
+        return this;
+    }
+
+    public Timestamp getCreateTime() {
+        return createTime;
+    }
+
+    public BenchmarkEntity setCreateTime(Timestamp createTime) {
+        this.createTime = createTime;
+        return this;
+    }
+}
@@ -0,0 +1,67 @@
+package org.team4u.dao.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.team4u.dao.core.SimpleDao;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimpleDao插入性能测试
+ *
+ * @author Jay Wu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoInsertBenchmark {
+
+    @Param({"1", "100"})
+    private int batchSize;
+
+    private BenchmarkDatabase database;
+
+    private SimpleDao dao;
+
+    private long nextId;
+
+    @Setup
+    public void setup() {
+        database = new BenchmarkDatabase("insert");
+        dao = database.getDao();
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        database.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public BenchmarkEntity insert() {
+        return dao.insert(BenchmarkDatabase.createEntities(nextId++, 1).get(0));
+    }
+
+    @Benchmark
+    public int[] insertList() {
+        return dao.insert(nextEntities());
+    }
+
+    @Benchmark
+    public int[] fastInsert() {
+        return dao.fastInsert(nextEntities());
+    }
+
+    private List<BenchmarkEntity> nextEntities() {
+        List<BenchmarkEntity> entities = BenchmarkDatabase.createEntities(nextId, batchSize);
+        nextId += batchSize;
+        return entities;
+    }
+}
@@ -0,0 +1,82 @@
+package org.team4u.dao.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.team4u.dao.core.SimpleDao;
+import org.team4u.kit.core.action.Callback;
+import org.team4u.sql.builder.Sql;
+import org.team4u.sql.builder.util.SqlBuilders;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimpleDao查询性能测试
+ *
+ * @author Jay Wu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoQueryBenchmark {
+
+    private static final int ROW_COUNT = 1000;
+
+    @Param({"100"})
+    private int listSize;
+
+    private BenchmarkDatabase database;
+
+    private SimpleDao dao;
+
+    private Sql objectSql;
+
+    private Sql listSql;
+
+    private long id;
+
+    @Setup
+    public void setup() {
+        database = new BenchmarkDatabase("query");
+        dao = database.getDao();
+        dao.fastInsert(BenchmarkDatabase.createEntities(0, ROW_COUNT));
+
+        objectSql = SqlBuilders.select(BenchmarkEntity.class).where("name", "=", "name1").create();
+        listSql = SqlBuilders.select(BenchmarkEntity.class).where("id", "<", listSize).create();
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public BenchmarkEntity queryWithPkForObject() {
+        id = (id + 1) % ROW_COUNT;
+        return dao.queryWithPkForObject(BenchmarkEntity.class, id);
+    }
+
+    @Benchmark
+    public BenchmarkEntity queryForObject() {
+        return dao.queryForObject(BenchmarkEntity.class, objectSql);
+    }
+
+    @Benchmark
+    public List<BenchmarkEntity> queryForList() {
+        return dao.queryForList(BenchmarkEntity.class, listSql);
+    }
+
+    @Benchmark
+    public int each() {
+        final int[] count = new int[1];
+        dao.each(BenchmarkEntity.class, listSql, new Callback<BenchmarkEntity>() {
+            @Override
+            public void invoke(BenchmarkEntity obj) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+}
@@ -0,0 +1,63 @@
+package org.team4u.dao.benchmark;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AbstractQueryRunner.fillStatement性能测试
+ *
+ * @author Jay Wu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FillStatementBenchmark {
+
+    private static final String SQL = "INSERT INTO bench_entity(id, name, age, score, remark, create_time) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final QueryRunner queryRunner = new QueryRunner();
+
+    private PreparedStatement stmt;
+
+    private Object[] params;
+
+    private Object[] paramsWithNull;
+
+    @Setup
+    public void setup() {
+        stmt = StubPreparedStatement.create(Rows.LABELS.length);
+        params = Rows.create(2)[1];
+        paramsWithNull = Rows.create(1)[0];
+    }
+
+    @Benchmark
+    public PreparedStatement fillStatement() throws SQLException {
+        queryRunner.fillStatement(stmt, params);
+        return stmt;
+    }
+
+    @Benchmark
+    public PreparedStatement fillStatementWithNull() throws SQLException {
+        queryRunner.fillStatement(stmt, paramsWithNull);
+        return stmt;
+    }
+
+    @Benchmark
+    public PreparedStatement fillStatementWithSql() throws SQLException {
+        queryRunner.fillStatement(SQL, stmt, params);
+        return stmt;
+    }
+
+    @Benchmark
+    public PreparedStatement fillStatementWithSqlAndNull() throws SQLException {
+        queryRunner.fillStatement(SQL, stmt, paramsWithNull);
+        return stmt;
+    }
+}
@@ -0,0 +1,83 @@
+package org.team4u.dao.benchmark;
+
+import cn.hutool.core.lang.Dict;
+import org.apache.commons.dbutils.BasicRowProcessor;
+import org.apache.commons.dbutils.BeanProcessor;
+import org.apache.commons.dbutils.RowProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.team4u.dao.resultset.processor.CamelCaseProcessor;
+import org.team4u.dao.resultset.processor.EntityProcessor;
+import org.team4u.dao.util.DbUtil;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于内存结果集的转换性能测试,不受数据库影响
+ *
+ * @author Jay Wu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"1", "1000"})
+    private int rowCount;
+
+    private ResultSet rs;
+
+    private RowProcessor beanRowProcessor;
+
+    private RowProcessor camelCaseRowProcessor;
+
+    private RowProcessor entityRowProcessor;
+
+    @Setup
+    public void setup() {
+        rs = Rows.createResultSet(rowCount);
+        beanRowProcessor = new BasicRowProcessor(new BeanProcessor());
+        camelCaseRowProcessor = new BasicRowProcessor(CamelCaseProcessor.DEFAULT_INSTANCE);
+        entityRowProcessor = new BasicRowProcessor(new EntityProcessor());
+    }
+
+    @Benchmark
+    public List<BenchmarkBean> beanProcessor() throws SQLException {
+        rs.beforeFirst();
+        return beanRowProcessor.toBeanList(rs, BenchmarkBean.class);
+    }
+
+    @Benchmark
+    public List<BenchmarkBean> camelCaseProcessor() throws SQLException {
+        rs.beforeFirst();
+        return camelCaseRowProcessor.toBeanList(rs, BenchmarkBean.class);
+    }
+
+    @Benchmark
+    public List<BenchmarkEntity> entityProcessor() throws SQLException {
+        rs.beforeFirst();
+        return entityRowProcessor.toBeanList(rs, BenchmarkEntity.class);
+    }
+
+    @Benchmark
+    public void toMap(Blackhole blackhole) throws SQLException {
+        rs.beforeFirst();
+        while (rs.next()) {
+            blackhole.consume(DbUtil.toMap(Dict.class, rs, false));
+        }
+    }
+
+    @Benchmark
+    public void toCamelCaseMap(Blackhole blackhole) throws SQLException {
+        rs.beforeFirst();
+        while (rs.next()) {
+            blackhole.consume(DbUtil.toMap(Dict.class, rs, true));
+        }
+    }
+}
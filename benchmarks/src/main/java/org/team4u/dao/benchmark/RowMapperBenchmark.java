@@ -0,0 +1,55 @@
+package org.team4u.dao.benchmark;
+
+import org.apache.commons.dbutils.BasicRowProcessor;
+import org.apache.commons.dbutils.RowProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.team4u.dao.resultset.mapper.FieldRowMapperCompiler;
+import org.team4u.dao.resultset.processor.CamelCaseProcessor;
+import org.team4u.dao.resultset.processor.CompiledRowProcessor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比反射方式与RowMapper方式转换对象的性能
+ *
+ * @author Jay Wu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    @Param({"1", "1000"})
+    private int rowCount;
+
+    private ResultSet rs;
+
+    private RowProcessor reflectRowProcessor;
+
+    private RowProcessor compiledRowProcessor;
+
+    @Setup
+    public void setup() {
+        rs = Rows.createResultSet(rowCount);
+        reflectRowProcessor = new BasicRowProcessor(CamelCaseProcessor.DEFAULT_INSTANCE);
+        compiledRowProcessor = new CompiledRowProcessor(CamelCaseProcessor.DEFAULT_INSTANCE, FieldRowMapperCompiler.INSTANCE);
+    }
+
+    @Benchmark
+    public List<BenchmarkBean> reflect() throws SQLException {
+        rs.beforeFirst();
+        return reflectRowProcessor.toBeanList(rs, BenchmarkBean.class);
+    }
+
+    @Benchmark
+    public List<BenchmarkBean> compiled() throws SQLException {
+        rs.beforeFirst();
+        return compiledRowProcessor.toBeanList(rs, BenchmarkBean.class);
+    }
+}
@@ -0,0 +1,29 @@
+package org.team4u.dao.benchmark;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+/**
+ * 生成测试数据
+ *
+ * @author Jay Wu
+ */
+public class Rows {
+
+    public static final String[] LABELS = {"id", "name", "age", "score", "remark", "create_time"};
+
+    public static Object[][] create(int count) {
+        Object[][] rows = new Object[count][];
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        for (int i = 0; i < count; i++) {
+            rows[i] = new Object[]{(long) i, "name" + i, i % 100, i * 0.5d, i % 2 == 0 ? null : "remark" + i, now};
+        }
+
+        return rows;
+    }
+
+    public static ResultSet createResultSet(int count) {
+        return StubResultSet.create(LABELS, create(count));
+    }
+}
@@ -0,0 +1,73 @@
+package org.team4u.dao.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+
+/**
+ * 仅记录参数的PreparedStatement,用于测试参数填充
+ *
+ * @author Jay Wu
+ */
+public class StubPreparedStatement implements InvocationHandler {
+
+    private final Object[] params;
+
+    private final ParameterMetaData parameterMetaData;
+
+    private StubPreparedStatement(final int parameterCount) {
+        params = new Object[parameterCount];
+        parameterMetaData = (ParameterMetaData) Proxy.newProxyInstance(
+                ParameterMetaData.class.getClassLoader(),
+                new Class[]{ParameterMetaData.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+
+                        if (name.equals("getParameterCount")) {
+                            return parameterCount;
+                        } else if (name.equals("getParameterType")) {
+                            return Types.VARCHAR;
+                        }
+
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+
+    public static PreparedStatement create(int parameterCount) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class[]{PreparedStatement.class},
+                new StubPreparedStatement(parameterCount));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+
+        if (name.equals("getParameterMetaData")) {
+            return parameterMetaData;
+        } else if (name.equals("setObject")) {
+            params[(Integer) args[0] - 1] = args[1];
+            return null;
+        } else if (name.equals("setNull")) {
+            params[(Integer) args[0] - 1] = null;
+            return null;
+        } else if (name.equals("close") || name.equals("clearParameters")) {
+            return null;
+        } else if (name.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        } else if (name.equals("equals")) {
+            return proxy == args[0];
+        } else if (name.equals("toString")) {
+            return "StubPreparedStatement";
+        }
+
+        throw new UnsupportedOperationException(name);
+    }
+}
@@ -0,0 +1,171 @@
+package org.team4u.dao.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * 基于内存数据的ResultSet,用于在不依赖数据库的情况下测试结果集转换
+ * <p>
+ * 仅实现了结果集转换所需的方法,调用其他方法将抛出UnsupportedOperationException
+ *
+ * @author Jay Wu
+ */
+public class StubResultSet implements InvocationHandler {
+
+    private final String[] labels;
+    private final int[] types;
+    private final Object[][] rows;
+    private final ResultSetMetaData metaData;
+
+    private int cursor = -1;
+    private boolean wasNull;
+    private boolean closed;
+
+    private StubResultSet(String[] labels, Object[][] rows) {
+        this.labels = labels;
+        this.rows = rows;
+        this.types = new int[labels.length];
+
+        for (int i = 0; i < labels.length; i++) {
+            types[i] = sqlType(rows.length == 0 ? null : rows[0][i]);
+        }
+
+        metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetMetaData.class.getClassLoader(),
+                new Class[]{ResultSetMetaData.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+
+                        if (name.equals("getColumnCount")) {
+                            return StubResultSet.this.labels.length;
+                        } else if (name.equals("getColumnLabel") || name.equals("getColumnName")) {
+                            return StubResultSet.this.labels[(Integer) args[0] - 1];
+                        } else if (name.equals("getColumnType")) {
+                            return types[(Integer) args[0] - 1];
+                        }
+
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+
+    /**
+     * 创建结果集
+     *
+     * @param labels 字段名称
+     * @param rows   每行数据,顺序与labels一致
+     */
+    public static ResultSet create(String[] labels, Object[][] rows) {
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class[]{ResultSet.class},
+                new StubResultSet(labels, rows));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+
+        if (name.equals("next")) {
+            return ++cursor < rows.length;
+        } else if (name.equals("beforeFirst")) {
+            cursor = -1;
+            return null;
+        } else if (name.equals("isLast")) {
+            return cursor == rows.length - 1;
+        } else if (name.equals("getMetaData")) {
+            return metaData;
+        } else if (name.equals("wasNull")) {
+            return wasNull;
+        } else if (name.equals("close")) {
+            closed = true;
+            return null;
+        } else if (name.equals("isClosed")) {
+            return closed;
+        } else if (name.equals("setFetchSize") || name.equals("setFetchDirection")) {
+            return null;
+        } else if (name.equals("getFetchSize")) {
+            return 0;
+        } else if (name.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        } else if (name.equals("equals")) {
+            return proxy == args[0];
+        } else if (name.equals("toString")) {
+            return "StubResultSet(rows=" + rows.length + ")";
+        } else if (name.startsWith("get") && args != null && args.length == 1) {
+            return get(name, column(args[0]));
+        }
+
+        throw new UnsupportedOperationException(name);
+    }
+
+    private int column(Object arg) throws SQLException {
+        if (arg instanceof Integer) {
+            return (Integer) arg;
+        }
+
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase((String) arg)) {
+                return i + 1;
+            }
+        }
+
+        throw new SQLException("Column not found:" + arg);
+    }
+
+    private Object get(String getter, int column) {
+        Object value = rows[cursor][column - 1];
+        wasNull = value == null;
+
+        if (getter.equals("getObject")) {
+            return value;
+        } else if (getter.equals("getString")) {
+            return value == null ? null : value.toString();
+        } else if (getter.equals("getInt")) {
+            return value == null ? 0 : ((Number) value).intValue();
+        } else if (getter.equals("getLong")) {
+            return value == null ? 0L : ((Number) value).longValue();
+        } else if (getter.equals("getDouble")) {
+            return value == null ? 0d : ((Number) value).doubleValue();
+        } else if (getter.equals("getFloat")) {
+            return value == null ? 0f : ((Number) value).floatValue();
+        } else if (getter.equals("getShort")) {
+            return value == null ? (short) 0 : ((Number) value).shortValue();
+        } else if (getter.equals("getByte")) {
+            return value == null ? (byte) 0 : ((Number) value).byteValue();
+        } else if (getter.equals("getBoolean")) {
+            return value != null && (Boolean) value;
+        } else if (getter.equals("getBigDecimal")) {
+            return value == null ? null : new BigDecimal(value.toString());
+        } else if (getter.equals("getTimestamp")) {
+            return value;
+        }
+
+        throw new UnsupportedOperationException(getter);
+    }
+
+    private static int sqlType(Object value) {
+        if (value instanceof Integer) {
+            return Types.INTEGER;
+        } else if (value instanceof Long) {
+            return Types.BIGINT;
+        } else if (value instanceof Double) {
+            return Types.DOUBLE;
+        } else if (value instanceof Timestamp) {
+            return Types.TIMESTAMP;
+        } else if (value instanceof Boolean) {
+            return Types.BOOLEAN;
+        }
+
+        return Types.VARCHAR;
+    }
+}
@@ -22,7 +22,10 @@ import cn.hutool.core.util.ReflectUtil;
 import javax.sql.DataSource;
 import java.lang.reflect.Field;
 import java.sql.*;
-import java.util.Arrays;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The base class for QueryRunner & AsyncQueryRunner. This class is thread safe.
@@ -43,6 +46,49 @@ public abstract class AbstractQueryRunner {
      */
     private volatile boolean pmdKnownBroken = false;
 
+    /**
+     * Maximum number of cached statements per connection, 0 disables the
+     * statement cache.
+     */
+    private volatile int statementCacheSize = 0;
+
+    /**
+     * Statement caches of the connections opened by
+     * {@link #openStatementCache(Connection)}.
+     */
+    private final ConcurrentMap<Connection, StatementCache> statementCaches =
+            new ConcurrentHashMap<Connection, StatementCache>();
+
+    /**
+     * Statements currently borrowed from a statement cache.
+     */
+    private final ConcurrentMap<Statement, StatementCache> borrowedStatements =
+            new ConcurrentHashMap<Statement, StatementCache>();
+
+    private final AtomicLong statementCacheHitCount = new AtomicLong();
+
+    /**
+     * Maximum number of SQL statements whose parameter information is
+     * cached, 0 disables the cache.
+     */
+    private volatile int parameterInfoCacheSize = ParameterInfo.DEFAULT_CACHE_SIZE;
+
+    /**
+     * Parameter count and types per SQL text, so that
+     * {@link PreparedStatement#getParameterMetaData()} is only called once per
+     * statement.
+     */
+    private final ConcurrentMap<String, ParameterInfo> parameterInfos =
+            new ConcurrentHashMap<String, ParameterInfo>();
+
+    private final AtomicLong statementCacheMissCount = new AtomicLong();
+
+    /**
+     * Default configuration applied to every prepared statement,
+     * <code>null</code> keeps the driver defaults.
+     */
+    private volatile StatementConfiguration stmtConfig;
+
     /**
      * Default constructor, sets pmdKnownBroken to false and ds to null.
      */
@@ -136,7 +182,27 @@ public abstract class AbstractQueryRunner {
     protected PreparedStatement prepareStatement(Connection conn, String sql)
             throws SQLException {
 
-        return conn.prepareStatement(sql);
+        return this.prepareStatement(conn, sql, (StatementConfiguration) null);
+    }
+
+    /**
+     * Factory method that creates and initializes a
+     * <code>PreparedStatement</code> object for the given SQL, configured
+     * with <code>config</code> over the default statement configuration.
+     *
+     * @param conn   The <code>Connection</code> used to create the
+     *               <code>PreparedStatement</code>
+     * @param sql    The SQL statement to prepare.
+     * @param config The configuration of this statement, options that are
+     *               not set fall back to {@link #getStatementConfiguration()};
+     *               may be <code>null</code>.
+     * @return An initialized <code>PreparedStatement</code>.
+     * @throws SQLException if a database access error occurs
+     */
+    protected PreparedStatement prepareStatement(Connection conn, String sql, StatementConfiguration config)
+            throws SQLException {
+
+        return this.prepareCachedStatement(conn, sql, StatementCache.NO_RETURNED_KEYS, config);
     }
 
     /**
@@ -160,7 +226,212 @@ public abstract class AbstractQueryRunner {
     protected PreparedStatement prepareStatement(Connection conn, String sql, int returnedKeys)
             throws SQLException {
 
-        return conn.prepareStatement(sql, returnedKeys);
+        return this.prepareCachedStatement(conn, sql, returnedKeys, null);
+    }
+
+    /**
+     * Applies <code>config</code> and the default statement configuration to
+     * the given statement. Options set by neither keep the driver defaults.
+     *
+     * @param stmt   The statement to configure.
+     * @param config The configuration of this statement, may be
+     *               <code>null</code>.
+     * @throws SQLException if a database access error occurs
+     */
+    public void configureStatement(Statement stmt, StatementConfiguration config)
+            throws SQLException {
+        this.configureStatement(stmt, config, false);
+    }
+
+    /**
+     * Applies <code>config</code> and the default statement configuration to
+     * the given statement.
+     *
+     * @param stmt   The statement to configure.
+     * @param config The configuration of this statement, may be
+     *               <code>null</code>.
+     * @param reset  True if the statement was reused from the statement
+     *               cache, options set by neither configuration are then
+     *               reset to the driver defaults so that the statement does
+     *               not keep the options of a previous call.
+     * @throws SQLException if a database access error occurs
+     */
+    private void configureStatement(Statement stmt, StatementConfiguration config, boolean reset)
+            throws SQLException {
+        StatementConfiguration defaults = this.stmtConfig;
+        if (config == null) {
+            config = defaults;
+        } else {
+            config = config.withDefaults(defaults);
+        }
+
+        if (config == null && !reset) {
+            return;
+        }
+
+        if (config != null && config.isFetchSizeSet()) {
+            stmt.setFetchSize(config.getFetchSize());
+        } else if (reset) {
+            stmt.setFetchSize(0);
+        }
+
+        if (config != null && config.isMaxRowsSet()) {
+            stmt.setMaxRows(config.getMaxRows());
+        } else if (reset) {
+            stmt.setMaxRows(0);
+        }
+
+        if (config != null && config.isQueryTimeoutSet()) {
+            stmt.setQueryTimeout(config.getQueryTimeout());
+        } else if (reset) {
+            stmt.setQueryTimeout(0);
+        }
+    }
+
+    /**
+     * Sets the default configuration applied to every prepared statement.
+     *
+     * @param stmtConfig The statement configuration, <code>null</code> keeps
+     *                   the driver defaults.
+     */
+    public void setStatementConfiguration(StatementConfiguration stmtConfig) {
+        this.stmtConfig = stmtConfig;
+    }
+
+    /**
+     * @return The default statement configuration, may be <code>null</code>.
+     */
+    public StatementConfiguration getStatementConfiguration() {
+        return stmtConfig;
+    }
+
+    /**
+     * Prepares and configures a statement, reusing an idle one from the
+     * statement cache of the connection if {@link #openStatementCache(Connection)}
+     * was called for it. Statements borrowed from the cache are given back by
+     * {@link #close(Statement)}.
+     *
+     * @param conn         The <code>Connection</code> used to create the
+     *                     <code>PreparedStatement</code>
+     * @param sql          The SQL statement to prepare.
+     * @param returnedKeys Flag indicating whether to return generated keys
+     *                     or not, {@link StatementCache#NO_RETURNED_KEYS} if
+     *                     the statement is not an insert.
+     * @param config       The configuration of this statement, may be
+     *                     <code>null</code>.
+     * @return An initialized <code>PreparedStatement</code>.
+     * @throws SQLException if a database access error occurs
+     */
+    private PreparedStatement prepareCachedStatement(Connection conn, String sql, int returnedKeys,
+                                                     StatementConfiguration config)
+            throws SQLException {
+        StatementCache cache = statementCacheSize > 0 ? statementCaches.get(conn) : null;
+        PreparedStatement stmt;
+        boolean reused = false;
+
+        if (cache == null) {
+            stmt = StatementCache.prepare(conn, sql, returnedKeys);
+        } else {
+            stmt = cache.borrow(sql, returnedKeys);
+            if (stmt == null) {
+                statementCacheMissCount.incrementAndGet();
+                stmt = cache.prepare(sql, returnedKeys);
+            } else {
+                statementCacheHitCount.incrementAndGet();
+                reused = true;
+            }
+
+            borrowedStatements.put(stmt, cache);
+        }
+
+        try {
+            this.configureStatement(stmt, config, reused);
+        } catch (SQLException e) {
+            this.discard(stmt);
+            throw e;
+        }
+        return stmt;
+    }
+
+    /**
+     * Sets the maximum number of prepared statements cached per connection.
+     * Statements are only cached between {@link #openStatementCache(Connection)}
+     * and {@link #closeStatementCache(Connection)}, the least recently used
+     * statement is closed when a cache is full.
+     *
+     * @param statementCacheSize maximum number of cached statements per
+     *                           connection, 0 disables the cache
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public long getStatementCacheHitCount() {
+        return statementCacheHitCount.get();
+    }
+
+    public long getStatementCacheMissCount() {
+        return statementCacheMissCount.get();
+    }
+
+    /**
+     * Returns the ratio of statements served from the statement cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if no statement was prepared
+     * with an open cache yet
+     */
+    public double getStatementCacheHitRate() {
+        long hits = statementCacheHitCount.get();
+        long total = hits + statementCacheMissCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Starts caching prepared statements for the given connection. Calls may
+     * be nested, the cache is kept until the matching number of
+     * {@link #closeStatementCache(Connection)} calls. Does nothing if the
+     * statement cache is disabled.
+     *
+     * @param conn The connection whose statements should be cached
+     */
+    public void openStatementCache(Connection conn) {
+        if (statementCacheSize <= 0 || conn == null) {
+            return;
+        }
+
+        StatementCache cache = statementCaches.get(conn);
+        if (cache == null) {
+            cache = new StatementCache(conn, statementCacheSize);
+            statementCaches.put(conn, cache);
+        }
+
+        cache.retain();
+    }
+
+    /**
+     * Stops caching prepared statements for the given connection and closes
+     * the cached statements once every {@link #openStatementCache(Connection)}
+     * call is matched. Must be called before the connection is closed or
+     * returned to a pool.
+     *
+     * @param conn The connection whose statements were cached
+     */
+    public void closeStatementCache(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+
+        StatementCache cache = statementCaches.get(conn);
+        if (cache == null || !cache.release()) {
+            return;
+        }
+
+        statementCaches.remove(conn);
+        cache.close();
     }
 
     /**
@@ -241,6 +512,144 @@ public abstract class AbstractQueryRunner {
         }
     }
 
+    /**
+     * Fill the <code>PreparedStatement</code> replacement parameters with the
+     * given objects. Unlike {@link #fillStatement(PreparedStatement, Object...)}
+     * the parameter count and types are looked up once per SQL text and
+     * cached, which avoids a <code>ParameterMetaData</code> call on every
+     * execution and on every row of a batch.
+     *
+     * @param sql    The SQL the statement was prepared for
+     * @param stmt   PreparedStatement to fill
+     * @param params Query replacement parameters; <code>null</code> is a valid
+     *               value to pass in.
+     * @throws SQLException if a database access error occurs
+     */
+    public void fillStatement(String sql, PreparedStatement stmt, Object... params)
+            throws SQLException {
+        ParameterInfo info = this.parameterInfo(sql, stmt);
+        int paramsCount = params == null ? 0 : params.length;
+
+        if (info != null && info.count != ParameterInfo.UNKNOWN_COUNT && info.count != paramsCount) {
+            throw new SQLException("Wrong number of parameters: expected "
+                    + info.count + ", was given " + paramsCount);
+        }
+
+        // nothing to do here
+        if (params == null) {
+            return;
+        }
+
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] != null) {
+                stmt.setObject(i + 1, params[i]);
+            } else {
+                stmt.setNull(i + 1, info == null ? Types.VARCHAR : this.parameterType(info, stmt, i + 1));
+            }
+        }
+    }
+
+    /**
+     * Returns the cached parameter information of the given SQL, reading the
+     * parameter count from the statement's <code>ParameterMetaData</code> on
+     * first use. The parameter types are only read when a null has to be
+     * bound, see {@link #parameterType(ParameterInfo, PreparedStatement, int)}.
+     *
+     * @return the parameter information, or <code>null</code> if it can't be
+     * determined
+     */
+    private ParameterInfo parameterInfo(String sql, PreparedStatement stmt) throws SQLException {
+        ParameterInfo info = sql == null ? null : parameterInfos.get(sql);
+
+        if (info != null || pmdKnownBroken) {
+            return info;
+        }
+
+        ParameterMetaData pmd = stmt.getParameterMetaData();
+        if (pmd == null) {
+            return null;
+        }
+
+        info = new ParameterInfo(pmd.getParameterCount(), null);
+        if (sql != null && parameterInfoCacheSize > 0) {
+            if (parameterInfos.size() >= parameterInfoCacheSize) {
+                Iterator<String> it = parameterInfos.keySet().iterator();
+                if (it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+            }
+            parameterInfos.put(sql, info);
+        }
+
+        return info;
+    }
+
+    /**
+     * Returns the SQL type of a parameter, reading the types of all
+     * parameters of the statement when the first null has to be bound.
+     * <p>
+     * Drivers that can't report parameter types, such as MySQL Connector/J
+     * without <code>generateSimpleParameterMetadata</code>, get
+     * <code>VARCHAR</code>. The failure is remembered for this SQL only, so
+     * the parameter count of other statements is still validated.
+     */
+    private int parameterType(ParameterInfo info, PreparedStatement stmt, int index) {
+        if (info.types == null) {
+            int[] types = ParameterInfo.NO_TYPES;
+            try {
+                ParameterMetaData pmd = stmt.getParameterMetaData();
+                if (pmd != null) {
+                    int[] read = new int[info.count];
+                    for (int i = 0; i < read.length; i++) {
+                        read[i] = pmd.getParameterType(i + 1);
+                    }
+                    types = read;
+                }
+            } catch (SQLException e) {
+                // Fall back to VARCHAR for this SQL
+            }
+            info.types = types;
+        }
+
+        return info.type(index);
+    }
+
+    /**
+     * Marks the given SQL as well formed, e.g. because it was generated by a
+     * SQL builder. {@link #fillStatement(String, PreparedStatement, Object...)}
+     * neither validates the parameter count of such SQL nor reads its
+     * <code>ParameterMetaData</code>, null parameters are bound as
+     * <code>VARCHAR</code>.
+     *
+     * @param sql The trusted SQL
+     */
+    public void skipParameterValidation(String sql) {
+        if (sql == null || parameterInfoCacheSize <= 0 || parameterInfos.containsKey(sql)) {
+            return;
+        }
+
+        parameterInfos.putIfAbsent(sql, ParameterInfo.TRUSTED);
+    }
+
+    /**
+     * Sets the maximum number of SQL statements whose parameter count and
+     * types are cached.
+     *
+     * @param parameterInfoCacheSize maximum number of cached statements, 0
+     *                               disables the cache
+     */
+    public void setParameterInfoCacheSize(int parameterInfoCacheSize) {
+        this.parameterInfoCacheSize = parameterInfoCacheSize;
+        if (parameterInfoCacheSize <= 0) {
+            parameterInfos.clear();
+        }
+    }
+
+    public int getParameterInfoCacheSize() {
+        return parameterInfoCacheSize;
+    }
+
     /**
      * Fill the <code>PreparedStatement</code> replacement parameters with the
      * given object's bean property values.
@@ -384,9 +793,37 @@ public abstract class AbstractQueryRunner {
      * @since DbUtils 1.1
      */
     protected void close(Statement stmt) throws SQLException {
+        if (stmt != null && !borrowedStatements.isEmpty()) {
+            StatementCache cache = borrowedStatements.remove(stmt);
+            if (cache != null && cache.giveBack((PreparedStatement) stmt)) {
+                return;
+            }
+        }
+
         DbUtils.close(stmt);
     }
 
+    /**
+     * Close a <code>Statement</code> without giving it back to the statement
+     * cache. Called when a call fails with the statement borrowed, because a
+     * failed statement may still hold queued batch rows or other state that
+     * must not leak into the next call. Exceptions are suppressed.
+     *
+     * @param stmt Statement to close, may be <code>null</code>
+     */
+    protected void discard(Statement stmt) {
+        if (stmt == null) {
+            return;
+        }
+
+        StatementCache cache = borrowedStatements.remove(stmt);
+        if (cache != null) {
+            cache.forget((PreparedStatement) stmt);
+        }
+
+        DbUtils.closeQuietly(stmt);
+    }
+
     /**
      * Close a <code>ResultSet</code>. This implementation avoids closing if
      * null and does <strong>not</strong> suppress any exceptions. Subclasses
@@ -400,4 +837,192 @@ public abstract class AbstractQueryRunner {
         DbUtils.close(rs);
     }
 
+    /**
+     * The idle prepared statements of one connection, keyed by SQL text and
+     * generated keys mode. A statement is removed from the cache while it is
+     * borrowed, so nested use of the same SQL on one connection gets its own
+     * statement.
+     */
+    protected static class StatementCache {
+
+        /**
+         * Generated keys mode of statements not prepared for an insert.
+         */
+        public static final int NO_RETURNED_KEYS = -1;
+
+        private final Connection conn;
+
+        private final LinkedHashMap<StatementKey, PreparedStatement> idleStatements;
+
+        private final Map<PreparedStatement, StatementKey> borrowed =
+                new IdentityHashMap<PreparedStatement, StatementKey>();
+
+        private int retain;
+
+        private boolean closed;
+
+        StatementCache(Connection conn, final int maxSize) {
+            this.conn = conn;
+            this.idleStatements = new LinkedHashMap<StatementKey, PreparedStatement>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatement> eldest) {
+                    if (size() > maxSize) {
+                        DbUtils.closeQuietly(eldest.getValue());
+                        return true;
+                    }
+
+                    return false;
+                }
+            };
+        }
+
+        static PreparedStatement prepare(Connection conn, String sql, int returnedKeys) throws SQLException {
+            if (returnedKeys == NO_RETURNED_KEYS) {
+                return conn.prepareStatement(sql);
+            }
+
+            return conn.prepareStatement(sql, returnedKeys);
+        }
+
+        synchronized PreparedStatement borrow(String sql, int returnedKeys) {
+            StatementKey key = new StatementKey(sql, returnedKeys);
+            PreparedStatement stmt = idleStatements.remove(key);
+
+            if (stmt != null) {
+                borrowed.put(stmt, key);
+            }
+
+            return stmt;
+        }
+
+        synchronized PreparedStatement prepare(String sql, int returnedKeys) throws SQLException {
+            PreparedStatement stmt = prepare(conn, sql, returnedKeys);
+            borrowed.put(stmt, new StatementKey(sql, returnedKeys));
+            return stmt;
+        }
+
+        /**
+         * @return true if the statement was put back into the cache, false if
+         * the caller should close it
+         */
+        synchronized boolean giveBack(PreparedStatement stmt) {
+            StatementKey key = borrowed.remove(stmt);
+            if (key == null || closed || idleStatements.containsKey(key)) {
+                return false;
+            }
+
+            try {
+                stmt.clearParameters();
+                stmt.clearBatch();
+            } catch (SQLException e) {
+                return false;
+            }
+
+            idleStatements.put(key, stmt);
+            return true;
+        }
+
+        /**
+         * Forgets a borrowed statement that the caller closes itself.
+         */
+        synchronized void forget(PreparedStatement stmt) {
+            borrowed.remove(stmt);
+        }
+
+        synchronized void retain() {
+            retain++;
+        }
+
+        /**
+         * @return true if the cache is no longer retained
+         */
+        synchronized boolean release() {
+            return --retain <= 0;
+        }
+
+        synchronized void close() {
+            closed = true;
+
+            for (PreparedStatement stmt : idleStatements.values()) {
+                DbUtils.closeQuietly(stmt);
+            }
+            idleStatements.clear();
+        }
+    }
+
+    private static final class StatementKey {
+
+        private final String sql;
+
+        private final int returnedKeys;
+
+        StatementKey(String sql, int returnedKeys) {
+            this.sql = sql;
+            this.returnedKeys = returnedKeys;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sql.hashCode() + returnedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StatementKey)) return false;
+
+            StatementKey that = (StatementKey) o;
+            return returnedKeys == that.returnedKeys && sql.equals(that.sql);
+        }
+    }
+
+    /**
+     * Parameter count and SQL types of one statement.
+     */
+    private static final class ParameterInfo {
+
+        static final int DEFAULT_CACHE_SIZE = 1024;
+
+        static final int UNKNOWN_COUNT = -1;
+
+        /**
+         * Parameter types of SQL whose types are unknown, null parameters
+         * are bound as <code>VARCHAR</code>.
+         */
+        static final int[] NO_TYPES = new int[0];
+
+        /**
+         * Parameter information of SQL that is not validated.
+         */
+        static final ParameterInfo TRUSTED = new ParameterInfo(UNKNOWN_COUNT, NO_TYPES);
+
+        final int count;
+
+        /**
+         * SQL type per parameter, <code>null</code> until the first null
+         * parameter is bound, {@link #NO_TYPES} if the driver can't report
+         * them.
+         */
+        volatile int[] types;
+
+        ParameterInfo(int count, int[] types) {
+            this.count = count;
+            this.types = types;
+        }
+
+        int type(int index) {
+            int[] types = this.types;
+            if (types == null || index > types.length) {
+                // VARCHAR works with many drivers regardless
+                // of the actual column type. Oddly, NULL and
+                // OTHER don't work with Oracle's drivers.
+                return Types.VARCHAR;
+            }
+
+            return types[index - 1];
+        }
+    }
+
 }
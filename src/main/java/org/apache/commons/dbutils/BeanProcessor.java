@@ -22,6 +22,9 @@ import cn.hutool.core.util.ReflectUtil;
 import java.lang.reflect.Field;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>
@@ -65,6 +68,12 @@ public class BeanProcessor {
         primitiveDefaults.put(Character.TYPE, Character.valueOf((char) 0));
     }
 
+    /**
+     * Column to property mappings shared by every <code>BeanProcessor</code>
+     * that does not override {@link #getMappingCache()}.
+     */
+    private static final MappingCache sharedMappingCache = new MappingCache(MappingCache.DEFAULT_MAX_SIZE);
+
     /**
      * ResultSet column to bean property name overrides.
      */
@@ -127,12 +136,26 @@ public class BeanProcessor {
      */
     public <T> T toBean(ResultSet rs, Class<T> type) throws SQLException {
 
-        Field[] props = this.Fields(type);
+        ColumnMapping mapping = this.columnMapping(rs.getMetaData(), type);
 
-        ResultSetMetaData rsmd = rs.getMetaData();
-        int[] columnToProperty = this.mapColumnsToProperties(rsmd, props);
+        return this.createBean(rs, type, mapping.props, mapping.columnToProperty);
+    }
 
-        return this.createBean(rs, type, props, columnToProperty);
+    /**
+     * Convert a <code>ResultSet</code> row into a JavaBean using a mapping
+     * previously returned by {@link #columnMapping(ResultSetMetaData, Class)}.
+     * Callers converting many rows of the same <code>ResultSet</code> look the
+     * mapping up once and pass it to every call.
+     *
+     * @param <T>     The type of bean to create
+     * @param rs      ResultSet that supplies the bean data
+     * @param type    Class from which to create the bean instance
+     * @param mapping The column to property mapping of <code>rs</code>
+     * @return the newly created bean
+     * @throws SQLException if a database access error occurs
+     */
+    public <T> T toBean(ResultSet rs, Class<T> type, ColumnMapping mapping) throws SQLException {
+        return this.createBean(rs, type, mapping.props, mapping.columnToProperty);
     }
 
     /**
@@ -176,17 +199,87 @@ public class BeanProcessor {
             return results;
         }
 
-        Field[] props = this.Fields(type);
-        ResultSetMetaData rsmd = rs.getMetaData();
-        int[] columnToProperty = this.mapColumnsToProperties(rsmd, props);
+        ColumnMapping mapping = this.columnMapping(rs.getMetaData(), type);
 
         do {
-            results.add(this.createBean(rs, type, props, columnToProperty));
+            results.add(this.createBean(rs, type, mapping.props, mapping.columnToProperty));
         } while (rs.next());
 
         return results;
     }
 
+    /**
+     * Returns the column to property mapping for the given bean class and
+     * result set shape. Mappings are looked up in {@link #getMappingCache()}
+     * by processor, bean class and column labels, so
+     * <code>mapColumnsToProperties</code> only runs once per shape.
+     *
+     * @param rsmd The <code>ResultSetMetaData</code> containing column
+     *             information.
+     * @param type The bean type.
+     * @return The properties of the bean and the column to property mapping.
+     * @throws SQLException if a database access error occurs
+     */
+    public ColumnMapping columnMapping(ResultSetMetaData rsmd, Class<?> type)
+            throws SQLException {
+        MappingCache cache = this.getMappingCache();
+        if (cache == null) {
+            return this.createColumnMapping(rsmd, type);
+        }
+
+        MappingKey key = new MappingKey(this, type, columnLabels(rsmd));
+        ColumnMapping mapping = cache.get(key);
+
+        if (mapping == null) {
+            mapping = this.createColumnMapping(rsmd, type);
+            cache.put(key, mapping);
+        }
+
+        return mapping;
+    }
+
+    /**
+     * Returns the cache used by {@link #columnMapping(ResultSetMetaData, Class)}.
+     * Subclasses may return their own cache, or <code>null</code> to disable
+     * caching.
+     *
+     * @return the mapping cache, by default the one shared by all processors
+     */
+    protected MappingCache getMappingCache() {
+        return sharedMappingCache;
+    }
+
+    /**
+     * Returns the mapping cache shared by all processors, e.g. to read its
+     * hit and miss counters.
+     *
+     * @return the shared mapping cache
+     */
+    public static MappingCache getSharedMappingCache() {
+        return sharedMappingCache;
+    }
+
+    private ColumnMapping createColumnMapping(ResultSetMetaData rsmd, Class<?> type)
+            throws SQLException {
+        Field[] props = this.Fields(type);
+        return new ColumnMapping(props, this.mapColumnsToProperties(rsmd, props, type));
+    }
+
+    private static String[] columnLabels(ResultSetMetaData rsmd) throws SQLException {
+        int cols = rsmd.getColumnCount();
+        String[] labels = new String[cols];
+
+        for (int col = 1; col <= cols; col++) {
+            String columnName = rsmd.getColumnLabel(col);
+            if (null == columnName || 0 == columnName.length()) {
+                columnName = rsmd.getColumnName(col);
+            }
+            labels[col - 1] = columnName;
+        }
+
+        return labels;
+    }
+
     /**
      * Creates a new object and initializes its fields from the ResultSet.
      *
@@ -356,6 +449,27 @@ public class BeanProcessor {
         return ReflectUtil.getFields(c);
     }
 
+    /**
+     * Maps columns to the properties of the given bean type. Subclasses
+     * that resolve column names from metadata of the bean type should
+     * override this method, since the type is passed along with the
+     * properties and no per-thread state is needed. The default
+     * implementation ignores the type and delegates to
+     * {@link #mapColumnsToProperties(ResultSetMetaData, Field[])}.
+     *
+     * @param rsmd  The <code>ResultSetMetaData</code> containing column
+     *              information.
+     * @param props The bean property descriptors.
+     * @param type  The bean type.
+     * @return An int[] with column index to property index mappings.
+     * @throws SQLException if a database access error occurs
+     */
+    protected int[] mapColumnsToProperties(ResultSetMetaData rsmd,
+                                           Field[] props,
+                                           Class<?> type) throws SQLException {
+        return this.mapColumnsToProperties(rsmd, props);
+    }
+
     /**
      * The positions in the returned array represent column numbers.  The
      * values stored at each position represent the index in the
@@ -469,4 +583,145 @@ public class BeanProcessor {
 
     }
 
+    /**
+     * The bean properties of a class together with the column to property
+     * mapping of one result set shape. Instances are immutable once created
+     * and may be shared between threads.
+     */
+    public static class ColumnMapping {
+
+        private final Field[] props;
+
+        private final int[] columnToProperty;
+
+        public ColumnMapping(Field[] props, int[] columnToProperty) {
+            this.props = props;
+            this.columnToProperty = columnToProperty;
+        }
+
+        public Field[] getProps() {
+            return props;
+        }
+
+        public int[] getColumnToProperty() {
+            return columnToProperty;
+        }
+    }
+
+    /**
+     * Identifies a mapping by processor, bean class and column labels.
+     */
+    private static final class MappingKey {
+
+        private final BeanProcessor processor;
+
+        private final Class<?> type;
+
+        private final String[] labels;
+
+        private final int hash;
+
+        MappingKey(BeanProcessor processor, Class<?> type, String[] labels) {
+            this.processor = processor;
+            this.type = type;
+            this.labels = labels;
+
+            int h = System.identityHashCode(processor);
+            h = 31 * h + type.hashCode();
+            h = 31 * h + Arrays.hashCode(labels);
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MappingKey)) return false;
+
+            MappingKey that = (MappingKey) o;
+            return hash == that.hash
+                    && processor == that.processor
+                    && type == that.type
+                    && Arrays.equals(labels, that.labels);
+        }
+    }
+
+    /**
+     * A bounded, thread-safe cache of column to property mappings. When the
+     * cache is full an arbitrary entry is evicted to make room for a new one.
+     * <p>
+     * This class is thread-safe.
+     * </p>
+     */
+    public static class MappingCache {
+
+        public static final int DEFAULT_MAX_SIZE = 1024;
+
+        private final ConcurrentMap<MappingKey, ColumnMapping> mappings =
+                new ConcurrentHashMap<MappingKey, ColumnMapping>();
+
+        private final int maxSize;
+
+        private final AtomicLong hitCount = new AtomicLong();
+
+        private final AtomicLong missCount = new AtomicLong();
+
+        public MappingCache(int maxSize) {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize must be positive");
+            }
+            this.maxSize = maxSize;
+        }
+
+        ColumnMapping get(MappingKey key) {
+            ColumnMapping mapping = mappings.get(key);
+
+            if (mapping == null) {
+                missCount.incrementAndGet();
+            } else {
+                hitCount.incrementAndGet();
+            }
+
+            return mapping;
+        }
+
+        void put(MappingKey key, ColumnMapping mapping) {
+            if (mappings.size() >= maxSize) {
+                Iterator<MappingKey> it = mappings.keySet().iterator();
+                if (it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+            }
+
+            mappings.put(key, mapping);
+        }
+
+        public int size() {
+            return mappings.size();
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public long getHitCount() {
+            return hitCount.get();
+        }
+
+        public long getMissCount() {
+            return missCount.get();
+        }
+
+        public void clear() {
+            mappings.clear();
+            hitCount.set(0);
+            missCount.set(0);
+        }
+    }
+
 }
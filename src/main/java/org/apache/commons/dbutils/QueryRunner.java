@@ -142,12 +142,14 @@ public class QueryRunner extends AbstractQueryRunner {
             stmt = this.prepareStatement(conn, sql);
 
             for (int i = 0; i < params.length; i++) {
-                this.fillStatement(stmt, params[i]);
+                this.fillStatement(sql, stmt, params[i]);
                 stmt.addBatch();
             }
             rows = stmt.executeBatch();
 
         } catch (SQLException e) {
+            this.discard(stmt);
+            stmt = null;
             this.rethrow(e, sql, (Object[]) params);
         } finally {
             close(stmt);
@@ -307,6 +309,26 @@ public class QueryRunner extends AbstractQueryRunner {
         return this.<T>query(conn, true, sql, rsh, (Object[]) null);
     }
 
+    /**
+     * Execute an SQL SELECT query with replacement parameters, configuring
+     * the statement with the given options.  The caller is responsible for
+     * closing the connection.
+     *
+     * @param <T>    The type of object that the handler returns
+     * @param conn   The connection to execute the query in.
+     * @param config The statement configuration of this query, options that
+     *               are not set fall back to the default configuration.
+     * @param sql    The query to execute.
+     * @param rsh    The handler that converts the results into an object.
+     * @param params The replacement parameters.
+     * @return The object returned by the handler.
+     * @throws SQLException if a database access error occurs
+     */
+    public <T> T query(Connection conn, StatementConfiguration config, String sql, ResultSetHandler<T> rsh,
+                       Object... params) throws SQLException {
+        return this.query(conn, false, config, sql, rsh, params);
+    }
+
     /**
      * Calls query after checking the parameters to ensure nothing is null.
      *
@@ -320,6 +342,25 @@ public class QueryRunner extends AbstractQueryRunner {
      */
     private <T> T query(Connection conn, boolean closeConn, String sql, ResultSetHandler<T> rsh, Object... params)
             throws SQLException {
+        return this.query(conn, closeConn, null, sql, rsh, params);
+    }
+
+    /**
+     * Calls query after checking the parameters to ensure nothing is null,
+     * configuring the statement with the given options.
+     *
+     * @param conn      The connection to use for the query call.
+     * @param closeConn True if the connection should be closed, false otherwise.
+     * @param config    The statement configuration, may be <code>null</code>.
+     * @param sql       The SQL statement to execute.
+     * @param rsh       The handler that converts the results into an object.
+     * @param params    The replacement parameters.
+     * @return The results of the query.
+     * @throws SQLException If there are database or parameter errors.
+     */
+    private <T> T query(Connection conn, boolean closeConn, StatementConfiguration config, String sql,
+                        ResultSetHandler<T> rsh, Object... params)
+            throws SQLException {
         if (conn == null) {
             throw new SQLException("Null connection");
         }
@@ -343,14 +384,21 @@ public class QueryRunner extends AbstractQueryRunner {
         T result = null;
 
         try {
-            stmt = this.prepareStatement(conn, sql);
-            this.fillStatement(stmt, params);
+            stmt = this.prepareStatement(conn, sql, config);
+            this.fillStatement(sql, stmt, params);
             rs = this.wrap(stmt.executeQuery());
             result = rsh.handle(rs);
 
         } catch (SQLException e) {
+            this.discard(stmt);
+            stmt = null;
             this.rethrow(e, sql, params);
 
+        } catch (RuntimeException e) {
+            this.discard(stmt);
+            stmt = null;
+            throw e;
+
         } finally {
             try {
                 close(rs);
@@ -486,10 +534,12 @@ public class QueryRunner extends AbstractQueryRunner {
 
         try {
             stmt = this.prepareStatement(conn, sql);
-            this.fillStatement(stmt, params);
+            this.fillStatement(sql, stmt, params);
             rows = stmt.executeUpdate();
 
         } catch (SQLException e) {
+            this.discard(stmt);
+            stmt = null;
             this.rethrow(e, sql, params);
 
         } finally {
@@ -605,20 +655,36 @@ public class QueryRunner extends AbstractQueryRunner {
         }
 
         PreparedStatement stmt = null;
+        ResultSet resultSet = null;
         T generatedKeys = null;
 
         try {
-            stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            this.fillStatement(stmt, params);
+            stmt = this.prepareStatement(conn, sql, Statement.RETURN_GENERATED_KEYS);
+            this.fillStatement(sql, stmt, params);
             stmt.executeUpdate();
-            ResultSet resultSet = stmt.getGeneratedKeys();
+            resultSet = stmt.getGeneratedKeys();
             generatedKeys = rsh.handle(resultSet);
         } catch (SQLException e) {
+            this.discard(stmt);
+            stmt = null;
             this.rethrow(e, sql, params);
+        } catch (RuntimeException e) {
+            this.discard(stmt);
+            stmt = null;
+            throw e;
+        } catch (Error e) {
+            this.discard(stmt);
+            stmt = null;
+            throw e;
         } finally {
-            close(stmt);
-            if (closeConn) {
-                close(conn);
+            try {
+                // the generated keys must be closed before the statement is returned to the cache
+                close(resultSet);
+            } finally {
+                close(stmt);
+                if (closeConn) {
+                    close(conn);
+                }
             }
         }
 
@@ -641,7 +707,7 @@ public class QueryRunner extends AbstractQueryRunner {
      * @since 1.6
      */
     public <T> T insertBatch(String sql, ResultSetHandler<T> rsh, Object[][] params) throws SQLException {
-        return insertBatch(this.prepareConnection(), true, sql, rsh, params);
+        return insertBatch(this.prepareConnection(), true, sql, rsh, null, params);
     }
 
     /**
@@ -658,7 +724,27 @@ public class QueryRunner extends AbstractQueryRunner {
      * @since 1.6
      */
     public <T> T insertBatch(Connection conn, String sql, ResultSetHandler<T> rsh, Object[][] params) throws SQLException {
-        return insertBatch(conn, false, sql, rsh, params);
+        return insertBatch(conn, false, sql, rsh, null, params);
+    }
+
+    /**
+     * Executes the given batch of INSERT SQL statements and copies the update
+     * counts returned by <code>executeBatch</code> into <code>rows</code>.
+     *
+     * @param <T>    The type of object that the handler returns
+     * @param conn   The connection to use to run the query.
+     * @param sql    The SQL to execute.
+     * @param rsh    The handler used to create the result object from
+     *               the <code>ResultSet</code> of auto-generated keys.
+     * @param rows   Receives the update count of each row, starting at
+     *               index 0; must be at least as long as <code>params</code>.
+     * @param params The query replacement parameters.
+     * @return The result generated by the handler.
+     * @throws SQLException if a database access error occurs
+     */
+    public <T> T insertBatch(Connection conn, String sql, ResultSetHandler<T> rsh, int[] rows, Object[][] params)
+            throws SQLException {
+        return insertBatch(conn, false, sql, rsh, rows, params);
     }
 
     /**
@@ -669,12 +755,14 @@ public class QueryRunner extends AbstractQueryRunner {
      * @param sql       The SQL statement to execute.
      * @param rsh       The handler used to create the result object from
      *                  the <code>ResultSet</code> of auto-generated keys.
+     * @param rows      Receives the update counts, may be <code>null</code>.
      * @param params    The query replacement parameters.
      * @return The result generated by the handler.
      * @throws SQLException If there are database or parameter errors.
      * @since 1.6
      */
-    private <T> T insertBatch(Connection conn, boolean closeConn, String sql, ResultSetHandler<T> rsh, Object[][] params)
+    private <T> T insertBatch(Connection conn, boolean closeConn, String sql, ResultSetHandler<T> rsh, int[] rows,
+                              Object[][] params)
             throws SQLException {
         if (conn == null) {
             throw new SQLException("Null connection");
@@ -695,24 +783,43 @@ public class QueryRunner extends AbstractQueryRunner {
         }
 
         PreparedStatement stmt = null;
+        ResultSet rs = null;
         T generatedKeys = null;
         try {
             stmt = this.prepareStatement(conn, sql, Statement.RETURN_GENERATED_KEYS);
 
             for (int i = 0; i < params.length; i++) {
-                this.fillStatement(stmt, params[i]);
+                this.fillStatement(sql, stmt, params[i]);
                 stmt.addBatch();
             }
-            stmt.executeBatch();
-            ResultSet rs = stmt.getGeneratedKeys();
+            int[] counts = stmt.executeBatch();
+            if (rows != null) {
+                System.arraycopy(counts, 0, rows, 0, counts.length);
+            }
+            rs = stmt.getGeneratedKeys();
             generatedKeys = rsh.handle(rs);
 
         } catch (SQLException e) {
+            this.discard(stmt);
+            stmt = null;
             this.rethrow(e, sql, (Object[]) params);
+        } catch (RuntimeException e) {
+            this.discard(stmt);
+            stmt = null;
+            throw e;
+        } catch (Error e) {
+            this.discard(stmt);
+            stmt = null;
+            throw e;
         } finally {
-            close(stmt);
-            if (closeConn) {
-                close(conn);
+            try {
+                // the generated keys must be closed before the statement is returned to the cache
+                close(rs);
+            } finally {
+                close(stmt);
+                if (closeConn) {
+                    close(conn);
+                }
             }
         }
 
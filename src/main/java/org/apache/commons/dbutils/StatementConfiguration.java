@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.dbutils;
+
+/**
+ * Configuration options for a {@link java.sql.Statement} when preparing
+ * statements in <code>QueryRunner</code>. Options that are not set keep the
+ * driver defaults.
+ * <p>
+ * Instances are immutable and thread safe, use {@link Builder} to create
+ * them.
+ */
+public class StatementConfiguration {
+
+    private final Integer fetchSize;
+    private final Integer maxRows;
+    private final Integer queryTimeout;
+
+    /**
+     * Constructor for <code>StatementConfiguration</code>. For more readable
+     * code, use {@link Builder} instead.
+     *
+     * @param fetchSize    The number of rows to fetch from the database at a
+     *                     time, <code>null</code> to keep the driver default.
+     * @param maxRows      The maximum number of rows that a
+     *                     <code>ResultSet</code> can produce,
+     *                     <code>null</code> for no limit.
+     * @param queryTimeout The number of seconds the driver will wait for
+     *                     execution, <code>null</code> for no timeout.
+     */
+    public StatementConfiguration(Integer fetchSize, Integer maxRows, Integer queryTimeout) {
+        this.fetchSize = fetchSize;
+        this.maxRows = maxRows;
+        this.queryTimeout = queryTimeout;
+    }
+
+    /**
+     * Get the fetch size.
+     *
+     * @return The fetch size or <code>null</code> if not set.
+     */
+    public Integer getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Whether fetch size is set.
+     *
+     * @return true if set, false otherwise.
+     */
+    public boolean isFetchSizeSet() {
+        return fetchSize != null;
+    }
+
+    /**
+     * Get the max rows.
+     *
+     * @return The max rows or <code>null</code> if not set.
+     */
+    public Integer getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * Whether max rows is set.
+     *
+     * @return true if set, false otherwise.
+     */
+    public boolean isMaxRowsSet() {
+        return maxRows != null;
+    }
+
+    /**
+     * Get the query timeout in seconds.
+     *
+     * @return The query timeout or <code>null</code> if not set.
+     */
+    public Integer getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * Whether query timeout is set.
+     *
+     * @return true if set, false otherwise.
+     */
+    public boolean isQueryTimeoutSet() {
+        return queryTimeout != null;
+    }
+
+    /**
+     * Returns a configuration that uses the options of this configuration and
+     * falls back to <code>defaults</code> for options that are not set.
+     *
+     * @param defaults The fallback configuration, may be <code>null</code>.
+     * @return The merged configuration.
+     */
+    public StatementConfiguration withDefaults(StatementConfiguration defaults) {
+        if (defaults == null || defaults == this) {
+            return this;
+        }
+
+        return new StatementConfiguration(
+                isFetchSizeSet() ? fetchSize : defaults.getFetchSize(),
+                isMaxRowsSet() ? maxRows : defaults.getMaxRows(),
+                isQueryTimeoutSet() ? queryTimeout : defaults.getQueryTimeout());
+    }
+
+    /**
+     * Builder class for <code>StatementConfiguration</code> for more flexible
+     * creation.
+     */
+    public static final class Builder {
+
+        private Integer fetchSize;
+        private Integer maxRows;
+        private Integer queryTimeout;
+
+        /**
+         * @param fetchSize The number of rows to fetch from the database at
+         *                  a time, <code>Integer.MIN_VALUE</code> makes the
+         *                  MySQL driver stream rows one by one.
+         * @return This builder for chaining.
+         * @see java.sql.Statement#setFetchSize(int)
+         */
+        public Builder fetchSize(Integer fetchSize) {
+            this.fetchSize = fetchSize;
+            return this;
+        }
+
+        /**
+         * @param maxRows The maximum number of rows that a
+         *                <code>ResultSet</code> can produce.
+         * @return This builder for chaining.
+         * @see java.sql.Statement#setMaxRows(int)
+         */
+        public Builder maxRows(Integer maxRows) {
+            this.maxRows = maxRows;
+            return this;
+        }
+
+        /**
+         * @param queryTimeout The number of seconds the driver will wait for
+         *                     execution.
+         * @return This builder for chaining.
+         * @see java.sql.Statement#setQueryTimeout(int)
+         */
+        public Builder queryTimeout(Integer queryTimeout) {
+            this.queryTimeout = queryTimeout;
+            return this;
+        }
+
+        /**
+         * @return A new and configured {@link StatementConfiguration}.
+         */
+        public StatementConfiguration build() {
+            return new StatementConfiguration(fetchSize, maxRows, queryTimeout);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.team4u.dao.core;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.team4u.kit.core.lang.Pager;
+import org.team4u.sql.builder.Sql;
+import org.team4u.sql.builder.entity.builder.EntitySqlBuilder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * 异步Dao,各方法与Dao一致,在线程池中执行并返回Future
+ * <p>
+ * 当前线程存在事务时,由于事务连接与线程绑定,操作将直接在当前线程中执行,返回已完成的Future
+ *
+ * @author Jay Wu
+ * @see Dao
+ */
+public interface AsyncDao {
+
+    <T> Future<T> queryWithPkForObject(Class<T> resultClass, Object... ids);
+
+    <T> Future<List<T>> queryWithPkForList(Class<T> resultClass, Collection<?> ids);
+
+    <T> Future<Map<Object, T>> queryWithPkForMap(Class<T> resultClass, Collection<?> ids);
+
+    <T> Future<T> queryForObject(Class<T> resultClass, Sql sql);
+
+    <T> Future<T> queryForObject(EntitySqlBuilder<T> sqlBuilder);
+
+    <T> Future<List<T>> queryForList(Class<T> resultClass, Sql sql);
+
+    <T> Future<List<T>> queryForList(EntitySqlBuilder<T> sqlBuilder);
+
+    Future<long[]> queryForLongs(Sql sql);
+
+    Future<int[]> queryForInts(Sql sql);
+
+    Future<double[]> queryForDoubles(Sql sql);
+
+    <T> Future<List<T>> queryForList(Class<T> resultClass, Sql sql, Pager pager);
+
+    <T> Future<List<T>> queryForList(EntitySqlBuilder<T> sqlBuilder, Pager pager);
+
+    <T> Future<T> query(ResultSetHandler<T> handler, Sql sql);
+
+    Future<Integer> count(Sql sql);
+
+    <T> Future<T> insert(T entity);
+
+    <T> Future<int[]> insert(List<T> entities);
+
+    <T> Future<int[]> fastInsert(List<T> entities);
+
+    Future<Integer> update(Object entity);
+
+    <T> Future<int[]> update(List<T> entities);
+
+    Future<Integer> delete(Object entity);
+
+    <T> Future<Integer> deleteWithPK(Class<T> resultClass, Object... ids);
+
+    <T> Future<int[]> delete(List<T> entities);
+
+    Future<Integer> execute(Sql sql);
+
+    Future<int[]> execute(List<Sql> sqlList);
+
+    <T> Future<T> execute(ConnectionCallback<T> connectionCallback);
+
+    /**
+     * 获取同步执行的Dao
+     */
+    Dao getDao();
+
+    /**
+     * 关闭线程池,已提交的操作将继续执行
+     */
+    void shutdown();
+}
\ No newline at end of file
@@ -0,0 +1,194 @@
+package org.team4u.dao.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求级别的主键批量加载器,用于消除循环中逐个queryWithPkForObject产生的N+1查询
+ * <p>
+ * load仅登记主键并返回Future,调用dispatch或首次获取任一Future的结果时,
+ * 每个实体类的待加载主键去重后通过一次queryWithPkForMap查询;
+ * 已加载的主键在加载器内缓存,重复加载不再访问数据库,因此加载器应随请求创建及丢弃
+ *
+ * @author Jay Wu
+ */
+public class BatchLoader {
+
+    private final Dao dao;
+
+    /**
+     * 实体类 -> 规范化主键 -> 加载结果
+     */
+    private final Map<Class<?>, Map<Object, LoadFuture<?>>> loaded =
+            new HashMap<Class<?>, Map<Object, LoadFuture<?>>>();
+
+    /**
+     * 实体类 -> 待加载的结果
+     */
+    private final Map<Class<?>, List<LoadFuture<?>>> pending =
+            new LinkedHashMap<Class<?>, List<LoadFuture<?>>>();
+
+    public BatchLoader(Dao dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * 登记需要加载的主键,复合主键按主键列顺序传入
+     *
+     * @return 加载结果,实体不存在时结果为null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> Future<T> load(Class<T> entityClass, Object... ids) {
+        Object key = EntityCache.keyOf(ids);
+
+        Map<Object, LoadFuture<?>> futures = loaded.get(entityClass);
+        if (futures == null) {
+            futures = new HashMap<Object, LoadFuture<?>>();
+            loaded.put(entityClass, futures);
+        }
+
+        LoadFuture<T> future = (LoadFuture<T>) futures.get(key);
+        if (future != null) {
+            return future;
+        }
+
+        future = new LoadFuture<T>(ids.length == 1 ? ids[0] : ids, ids.length == 1 ? ids[0] : key);
+        futures.put(key, future);
+
+        List<LoadFuture<?>> classPending = pending.get(entityClass);
+        if (classPending == null) {
+            classPending = new ArrayList<LoadFuture<?>>();
+            pending.put(entityClass, classPending);
+        }
+        classPending.add(future);
+
+        return future;
+    }
+
+    /**
+     * 立即加载并返回实体,同时加载所有已登记的主键
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Class<T> entityClass, Object... ids) {
+        LoadFuture<T> future = (LoadFuture<T>) load(entityClass, ids);
+        dispatch();
+        return future.getValue();
+    }
+
+    /**
+     * 批量加载所有已登记的主键,每个实体类执行一次查询
+     */
+    public synchronized void dispatch() {
+        while (!pending.isEmpty()) {
+            Map.Entry<Class<?>, List<LoadFuture<?>>> entry = pending.entrySet().iterator().next();
+            pending.remove(entry.getKey());
+            dispatch(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 清除已加载的实体,后续加载将重新查询数据库
+     */
+    public synchronized void clear() {
+        dispatch();
+        loaded.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(Class<?> entityClass, List<LoadFuture<?>> futures) {
+        List<Object> ids = new ArrayList<Object>(futures.size());
+        for (LoadFuture<?> future : futures) {
+            ids.add(future.id);
+        }
+
+        Map<Object, ?> values;
+        try {
+            values = dao.queryWithPkForMap(entityClass, ids);
+        } catch (RuntimeException e) {
+            // 加载失败的主键不缓存,允许再次加载
+            Map<Object, LoadFuture<?>> classLoaded = loaded.get(entityClass);
+            for (LoadFuture<?> future : futures) {
+                future.fail(e);
+                classLoaded.values().remove(future);
+            }
+            return;
+        }
+
+        for (LoadFuture<?> future : futures) {
+            ((LoadFuture<Object>) future).complete(values.get(future.resultKey));
+        }
+    }
+
+    private class LoadFuture<T> implements Future<T> {
+
+        private final Object id;
+        private final Object resultKey;
+        private boolean done;
+        private T value;
+        private RuntimeException error;
+
+        LoadFuture(Object id, Object resultKey) {
+            this.id = id;
+            this.resultKey = resultKey;
+        }
+
+        void complete(T value) {
+            this.value = value;
+            done = true;
+        }
+
+        void fail(RuntimeException error) {
+            this.error = error;
+            done = true;
+        }
+
+        T getValue() {
+            if (!isDone()) {
+                dispatch();
+            }
+
+            if (error != null) {
+                throw error;
+            }
+
+            return value;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            synchronized (BatchLoader.this) {
+                return done;
+            }
+        }
+
+        @Override
+        public T get() throws ExecutionException {
+            try {
+                return getValue();
+            } catch (RuntimeException e) {
+                throw new ExecutionException(e);
+            }
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit) throws ExecutionException {
+            return get();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package org.team4u.dao.core;
+
+import org.team4u.sql.builder.Sql;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按SQL及参数缓存总记录数,避免翻页时重复计数
+ *
+ * @author Jay Wu
+ */
+public class CountCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+    private volatile long ttlMillis;
+
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * 获取缓存的总记录数
+     *
+     * @return 总记录数,未缓存或已过期则返回null
+     */
+    public Integer get(Sql sql) {
+        if (ttlMillis <= 0) {
+            return null;
+        }
+
+        Key key = new Key(sql);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.expireAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+
+        return entry.count;
+    }
+
+    public void put(Sql sql, int count) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+
+        entries.put(new Key(sql), new Entry(count, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 优先清除已过期的记录,若均未过期则任意清除一条
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        boolean removed = false;
+
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (it.next().expireAt < now) {
+                it.remove();
+                removed = true;
+            }
+        }
+
+        if (!removed) {
+            Iterator<Key> it = entries.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * 设置缓存有效期(毫秒),小于等于0则不缓存
+     */
+    public CountCache setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        if (ttlMillis <= 0) {
+            entries.clear();
+        }
+        return this;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public CountCache setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    private static class Key {
+
+        private final String sql;
+
+        private final Object[] params;
+
+        private final int hashCode;
+
+        Key(Sql sql) {
+            this.sql = sql.getContent();
+            this.params = sql.getParams() == null ? new Object[0] : sql.getParams().clone();
+            this.hashCode = 31 * this.sql.hashCode() + Arrays.deepHashCode(params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return sql.equals(key.sql) && Arrays.deepEquals(params, key.params);
+        }
+    }
+
+    private static class Entry {
+
+        private final int count;
+
+        private final long expireAt;
+
+        Entry(int count, long expireAt) {
+            this.count = count;
+            this.expireAt = expireAt;
+        }
+    }
+}
\ No newline at end of file
@@ -1,12 +1,15 @@
 package org.team4u.dao.core;
 
 import org.apache.commons.dbutils.ResultSetHandler;
+import org.apache.commons.dbutils.StatementConfiguration;
 import org.team4u.kit.core.action.Callback;
 import org.team4u.kit.core.lang.Pager;
 import org.team4u.sql.builder.Sql;
 import org.team4u.sql.builder.entity.builder.EntitySqlBuilder;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Jay Wu
@@ -20,6 +23,20 @@ public interface Dao {
      */
     <T> T queryWithPkForObject(Class<T> resultClass, Object... ids);
 
+    /**
+     * 根据一组主键批量查询对象,复合主键的每个元素为按主键列顺序排列的数组或集合
+     *
+     * @return 按主键顺序排列的对象,不包含不存在的对象
+     */
+    <T> List<T> queryWithPkForList(Class<T> resultClass, Collection<?> ids);
+
+    /**
+     * 根据一组主键批量查询对象
+     *
+     * @return 按主键顺序排列的主键与对象映射,不包含不存在的对象,复合主键的键为主键值列表
+     */
+    <T> Map<Object, T> queryWithPkForMap(Class<T> resultClass, Collection<?> ids);
+
     /**
      * 查询单个对象
      *
@@ -48,6 +65,27 @@ public interface Dao {
      */
     <T> List<T> queryForList(EntitySqlBuilder<T> sqlBuilder);
 
+    /**
+     * 查询第一列的long值,不经过装箱及类型转换
+     *
+     * @return long数组,null值为0
+     */
+    long[] queryForLongs(Sql sql);
+
+    /**
+     * 查询第一列的int值,不经过装箱及类型转换
+     *
+     * @return int数组,null值为0
+     */
+    int[] queryForInts(Sql sql);
+
+    /**
+     * 查询第一列的double值,不经过装箱及类型转换
+     *
+     * @return double数组,null值为0
+     */
+    double[] queryForDoubles(Sql sql);
+
     /**
      * 根据分页查询一组对象
      *
@@ -55,6 +93,15 @@ public interface Dao {
      */
     <T> List<T> queryForList(Class<T> resultClass, Sql sql, Pager pager);
 
+    /**
+     * 根据分页查询一组对象，并指定fetchSize、maxRows、queryTimeout等Statement配置
+     *
+     * @param pager  分页对象，可为null
+     * @param config Statement配置，未设置的参数使用默认配置，可为null
+     * @return 对象集合
+     */
+    <T> List<T> queryForList(Class<T> resultClass, Sql sql, Pager pager, StatementConfiguration config);
+
     /**
      * 根据分页查询一组对象
      *
@@ -69,6 +116,14 @@ public interface Dao {
      */
     <T> T query(ResultSetHandler<T> handler, Sql sql);
 
+    /**
+     * 查询数据,返回结果由handler进行处理，并指定fetchSize、maxRows、queryTimeout等Statement配置
+     *
+     * @param config Statement配置，未设置的参数使用默认配置，可为null
+     * @return 结果对象
+     */
+    <T> T query(ResultSetHandler<T> handler, Sql sql, StatementConfiguration config);
+
     /**
      * 查询记录数量
      *
@@ -96,6 +151,59 @@ public interface Dao {
      */
     <T> void each(EntitySqlBuilder<T> sqlBuilder, Pager pager, Callback<T> callback);
 
+    /**
+     * 对一组对象按指定分页进行迭代，适用于大量数据的集合
+     * <p>
+     * 未指定fetchSize时将按游标方式读取
+     *
+     * @param pager  分页对象，可为null
+     * @param config Statement配置，未设置的参数使用默认配置，可为null
+     */
+    <T> void each(Class<T> resultClass, Sql sql, Pager pager, Callback<T> callback, StatementConfiguration config);
+
+    /**
+     * 以游标方式逐行读取一组对象，适用于大量数据的集合
+     * <p>
+     * 迭代期间将一直占用数据库连接，迭代结束后自动释放；若提前结束迭代，请务必调用close()
+     *
+     * @return 结果迭代器
+     */
+    <T> ResultIterator<T> stream(Class<T> resultClass, Sql sql);
+
+    /**
+     * 以游标方式逐行读取一组对象，并指定fetchSize、maxRows、queryTimeout等Statement配置
+     *
+     * @param config Statement配置，未设置的参数使用默认配置，可为null
+     * @return 结果迭代器
+     */
+    <T> ResultIterator<T> stream(Class<T> resultClass, Sql sql, StatementConfiguration config);
+
+    /**
+     * 以游标方式逐行读取一组对象，适用于大量数据的集合
+     *
+     * @return 结果迭代器
+     */
+    <T> ResultIterator<T> stream(EntitySqlBuilder<T> sqlBuilder);
+
+    /**
+     * 按keyset分页逐页迭代一组实体，适用于大量数据的集合
+     * <p>
+     * sql中不能包含ORDER BY及分页语句，迭代过程中pager的lastKeys将更新为最近一页最后一条记录的排序列值
+     */
+    <T> void eachByKeyset(Class<T> entityClass, Sql sql, KeysetPager pager, Callback<T> callback);
+
+    /**
+     * 按keyset分页逐页迭代一组实体，适用于大量数据的集合
+     */
+    <T> void eachByKeyset(EntitySqlBuilder<T> sqlBuilder, KeysetPager pager, Callback<T> callback);
+
+    /**
+     * 按keyset分页逐页读取一组实体，每页查询结束后即释放数据库连接
+     *
+     * @return 结果迭代器
+     */
+    <T> ResultIterator<T> streamByKeyset(Class<T> entityClass, Sql sql, KeysetPager pager);
+
     /**
      * 将一个对象插入到一个数据源。
      * <p>
@@ -129,7 +237,8 @@ public interface Dao {
     /**
      * 将一个对象集合插入到一个数据源，可忽略null值。
      * <p>
-     * 如果你的字段声明了 '@Id(auto=true)'，则填充插入后最新的 ID 值;若auto=false,则内部采用fastInsert处理
+     * 如果你的字段声明了 '@Id(auto=true)'，则填充插入后最新的 ID 值;若auto=false,则内部采用fastInsert处理。
+     * 驱动返回的主键数量与记录数不一致时抛出异常,此时已执行的插入需由事务回滚
      *
      * @param entities         实体对象集合
      * @param activatedColumns 可插入字段正则表达式，如a|b表示只插入a和b字段，留空则插入所有字段
@@ -0,0 +1,155 @@
+package org.team4u.dao.core;
+
+import cn.hutool.core.lang.Assert;
+import org.team4u.dao.util.CopyUtil;
+import org.team4u.dao.util.DbUtil;
+import org.team4u.sql.builder.entity.Entity;
+import org.team4u.sql.builder.entity.builder.EntitySqlBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按主键缓存实体的二级缓存,仅缓存已注册的实体类
+ * <p>
+ * 缓存及返回的均为实体的浅拷贝,调用方修改返回的实体不会影响缓存
+ *
+ * @author Jay Wu
+ */
+public class EntityCache {
+
+    private final Map<Class<?>, LruCache<Object, Object>> caches =
+            new ConcurrentHashMap<Class<?>, LruCache<Object, Object>>();
+
+    /**
+     * 注册需要缓存的实体类
+     *
+     * @param maxSize   最大缓存实体数,超出时清除最久未访问的实体
+     * @param ttlMillis 有效期(毫秒),小于等于0则永不过期
+     */
+    public EntityCache register(Class<?> entityClass, int maxSize, long ttlMillis) {
+        Assert.isTrue(maxSize > 0, "Invalid max size:" + maxSize);
+        Assert.notNull(EntitySqlBuilder.DEFAULT_ENTITY_MANAGER.createIfNotExist(entityClass),
+                "Not entity class:" + entityClass);
+        CopyUtil.checkCopyable(entityClass);
+
+        caches.put(entityClass, new LruCache<Object, Object>(maxSize, ttlMillis));
+        return this;
+    }
+
+    public boolean isCached(Class<?> entityClass) {
+        return caches.containsKey(entityClass);
+    }
+
+    /**
+     * 获取缓存的实体
+     *
+     * @return 实体的拷贝,未缓存则返回null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Class<T> entityClass, Object key) {
+        LruCache<Object, Object> cache = caches.get(entityClass);
+        if (cache == null) {
+            return null;
+        }
+
+        Object value = cache.get(key);
+        return value == null ? null : (T) copy(value);
+    }
+
+    /**
+     * 获取缓存版本,查询数据库前获取,写入缓存时用于判断期间是否发生过清除
+     */
+    public long getVersion(Class<?> entityClass) {
+        LruCache<Object, Object> cache = caches.get(entityClass);
+        return cache == null ? 0 : cache.getVersion();
+    }
+
+    /**
+     * 缓存实体,若读取实体后该类缓存发生过清除则放弃写入,避免缓存旧数据
+     *
+     * @param version 查询数据库前通过getVersion获取的版本
+     */
+    public void put(Object key, Object entity, long version) {
+        if (entity == null) {
+            return;
+        }
+
+        LruCache<Object, Object> cache = caches.get(entity.getClass());
+        if (cache != null) {
+            cache.put(key, copy(entity), version);
+        }
+    }
+
+    public void evict(Class<?> entityClass, Object key) {
+        LruCache<Object, Object> cache = caches.get(entityClass);
+        if (cache != null) {
+            cache.remove(key);
+        }
+    }
+
+    public void clear(Class<?> entityClass) {
+        LruCache<Object, Object> cache = caches.get(entityClass);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    public void clear() {
+        for (LruCache<Object, Object> cache : caches.values()) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 获取实体类的缓存,可用于查看命中率等统计信息
+     */
+    public LruCache<Object, Object> getCache(Class<?> entityClass) {
+        return caches.get(entityClass);
+    }
+
+    /**
+     * 根据实体的主键值生成缓存键
+     */
+    public Object entityKey(Object entity) {
+        Entity<?> meta = EntitySqlBuilder.DEFAULT_ENTITY_MANAGER.createIfNotExist(entity.getClass());
+        List<Entity.Column> idColumns = meta.getIdColumns();
+
+        Object[] ids = new Object[idColumns.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = DbUtil.getColumnValue(idColumns.get(i), entity);
+        }
+
+        return keyOf(ids);
+    }
+
+    /**
+     * 根据主键值生成缓存键,整数类型的主键统一转换为Long,使不同类型的相同值对应同一个键
+     */
+    public static Object keyOf(Object... ids) {
+        if (ids.length == 1) {
+            return normalize(ids[0]);
+        }
+
+        List<Object> key = new ArrayList<Object>(ids.length);
+        for (Object id : ids) {
+            key.add(normalize(id));
+        }
+        return Collections.unmodifiableList(key);
+    }
+
+    private static Object normalize(Object id) {
+        if (id instanceof Integer || id instanceof Short || id instanceof Byte) {
+            return ((Number) id).longValue();
+        }
+
+        return id;
+    }
+
+    protected Object copy(Object entity) {
+        return CopyUtil.copy(entity);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package org.team4u.dao.core;
+
+/**
+ * 基于排序列的分页(keyset分页)
+ * <p>
+ * 每页通过上一页最后一条记录的排序列值定位,不再扫描并丢弃offset之前的记录,深度翻页时耗时保持稳定
+ *
+ * @author Jay Wu
+ */
+public class KeysetPager {
+
+    private int pageSize = 100;
+
+    /**
+     * 排序列名称,为空时使用实体主键
+     */
+    private String[] columns;
+
+    /**
+     * 上一页最后一条记录的排序列值,为空时从第一条记录开始
+     */
+    private Object[] lastKeys;
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public KeysetPager setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    public String[] getColumns() {
+        return columns;
+    }
+
+    public KeysetPager setColumns(String... columns) {
+        this.columns = columns;
+        return this;
+    }
+
+    public Object[] getLastKeys() {
+        return lastKeys;
+    }
+
+    public KeysetPager setLastKeys(Object... lastKeys) {
+        this.lastKeys = lastKeys;
+        return this;
+    }
+}
\ No newline at end of file
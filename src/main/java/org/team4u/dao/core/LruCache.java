@@ -0,0 +1,176 @@
+package org.team4u.dao.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带有效期的LRU缓存,超出容量时清除最久未访问的记录
+ *
+ * @author Jay Wu
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, CachedValue<V>> entries;
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * 每次清除记录时递增,用于避免将清除前读取的旧数据写入缓存
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * @param maxSize   最大记录数
+     * @param ttlMillis 有效期(毫秒),小于等于0则永不过期
+     */
+    public LruCache(final int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存值
+     *
+     * @return 缓存值,未缓存或已过期则返回null
+     */
+    public V get(K key) {
+        CachedValue<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+
+            if (entry != null && entry.isExpired()) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        hitCount.incrementAndGet();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new CachedValue<V>(value, expireAt()));
+        }
+    }
+
+    /**
+     * 仅当读取数据后未发生清除时写入缓存
+     *
+     * @param version 读取数据前通过getVersion()获取的版本
+     * @return 是否已写入
+     */
+    public boolean put(K key, V value, long version) {
+        synchronized (entries) {
+            if (this.version.get() != version) {
+                return false;
+            }
+
+            entries.put(key, new CachedValue<V>(value, expireAt()));
+            return true;
+        }
+    }
+
+    public void remove(K key) {
+        synchronized (entries) {
+            version.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            version.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    /**
+     * 清除已过期的记录
+     */
+    public void removeExpired() {
+        synchronized (entries) {
+            for (Iterator<CachedValue<V>> it = entries.values().iterator(); it.hasNext(); ) {
+                if (it.next().isExpired()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return 命中率,未访问时为0
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private long expireAt() {
+        return ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+    }
+
+    private static class CachedValue<V> {
+
+        private final V value;
+
+        private final long expireAt;
+
+        CachedValue(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        boolean isExpired() {
+            return expireAt < System.currentTimeMillis();
+        }
+    }
+}
\ No newline at end of file
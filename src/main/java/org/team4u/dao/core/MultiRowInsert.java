@@ -0,0 +1,170 @@
+package org.team4u.dao.core;
+
+import org.team4u.dao.util.DbUtil;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 将单行INSERT语句扩展为多行INSERT ... VALUES (...),(...)语句
+ * <p>
+ * 每条单行SQL(即每个实体类及其插入字段组合)只解析一次,各行数对应的SQL也将缓存复用
+ *
+ * @author Jay Wu
+ */
+public class MultiRowInsert {
+
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    private static final Map<String, MultiRowInsert> CACHE = new ConcurrentHashMap<String, MultiRowInsert>();
+
+    /**
+     * 无法扩展的SQL使用该值占位,避免重复解析
+     */
+    private static final MultiRowInsert NOT_SUPPORTED = new MultiRowInsert(null, null, 0);
+
+    private final String prefix;
+
+    private final String row;
+
+    private final int paramsPerRow;
+
+    private final Map<Integer, String> sqlCache = new ConcurrentHashMap<Integer, String>();
+
+    private MultiRowInsert(String prefix, String row, int paramsPerRow) {
+        this.prefix = prefix;
+        this.row = row;
+        this.paramsPerRow = paramsPerRow;
+    }
+
+    /**
+     * 根据单行INSERT语句获取对应的MultiRowInsert
+     *
+     * @param sql 单行INSERT语句,VALUES中只能包含参数占位符
+     * @return MultiRowInsert,若该语句无法扩展为多行则返回null
+     */
+    public static MultiRowInsert of(String sql) {
+        MultiRowInsert insert = CACHE.get(sql);
+
+        if (insert == null) {
+            insert = parse(sql);
+
+            if (CACHE.size() >= MAX_CACHE_SIZE) {
+                Iterator<String> it = CACHE.keySet().iterator();
+                if (it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+            }
+            CACHE.put(sql, insert);
+        }
+
+        return insert == NOT_SUPPORTED ? null : insert;
+    }
+
+    /**
+     * 获取数据库单条语句允许的最大参数个数
+     *
+     * @return 最大参数个数,若数据库不支持多行VALUES则返回0
+     */
+    public static int maxBindParameters(Connection connection) throws SQLException {
+        String productName = DbUtil.getDatabaseProductName(connection);
+
+        if (productName.contains("mysql") || productName.contains("mariadb")) {
+            return 65535;
+        } else if (productName.contains("postgresql")) {
+            return 32767;
+        } else if (productName.contains("h2") || productName.contains("hsql")) {
+            return 32767;
+        } else if (productName.contains("sqlite")) {
+            return 999;
+        } else if (productName.contains("microsoft sql server")) {
+            return 2100;
+        }
+
+        return 0;
+    }
+
+    private static MultiRowInsert parse(String sql) {
+        if (sql == null) {
+            return NOT_SUPPORTED;
+        }
+
+        String upperSql = sql.toUpperCase(Locale.ENGLISH);
+        int valuesIndex = upperSql.lastIndexOf("VALUES");
+        if (!upperSql.trim().startsWith("INSERT") || valuesIndex < 0) {
+            return NOT_SUPPORTED;
+        }
+
+        int begin = sql.indexOf('(', valuesIndex);
+        int end = sql.indexOf(')', begin + 1);
+        if (begin < 0 || end < 0) {
+            return NOT_SUPPORTED;
+        }
+
+        String between = sql.substring(valuesIndex + "VALUES".length(), begin).trim();
+        String rest = sql.substring(end + 1).trim();
+        if (between.length() > 0 || (rest.length() > 0 && !rest.equals(";"))) {
+            return NOT_SUPPORTED;
+        }
+
+        String row = sql.substring(begin, end + 1);
+        int paramsPerRow = 0;
+        for (int i = 1; i < row.length() - 1; i++) {
+            char c = row.charAt(i);
+            if (c == '?') {
+                paramsPerRow++;
+            } else if (c != ',' && !Character.isWhitespace(c)) {
+                // VALUES中包含常量或表达式,不做处理
+                return NOT_SUPPORTED;
+            }
+        }
+
+        if (paramsPerRow == 0) {
+            return NOT_SUPPORTED;
+        }
+
+        return new MultiRowInsert(sql.substring(0, begin), row, paramsPerRow);
+    }
+
+    /**
+     * 获取指定行数的INSERT语句
+     */
+    public String sql(int rowCount) {
+        String sql = sqlCache.get(rowCount);
+
+        if (sql == null) {
+            StringBuilder sb = new StringBuilder(prefix.length() + (row.length() + 1) * rowCount);
+            sb.append(prefix);
+            for (int i = 0; i < rowCount; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(row);
+            }
+
+            sql = sb.toString();
+            sqlCache.put(rowCount, sql);
+        }
+
+        return sql;
+    }
+
+    /**
+     * 计算每条语句的最大行数
+     *
+     * @param maxRows           配置的最大行数
+     * @param maxBindParameters 数据库允许的最大参数个数
+     */
+    public int rowsPerStatement(int maxRows, int maxBindParameters) {
+        return Math.max(1, Math.min(maxRows, maxBindParameters / paramsPerRow));
+    }
+
+    public int getParamsPerRow() {
+        return paramsPerRow;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,611 @@
+package org.team4u.dao.core;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内置连接池
+ * <p>
+ * 借出连接时优先复用当前线程最近归还的连接,其次无锁扫描所有空闲连接,连接数未达上限时创建新连接,
+ * 否则等待其他线程归还;后台任务定期清除空闲超时及超过最大存活时间的连接,补足最小连接数并检测连接泄漏
+ *
+ * @author Jay Wu
+ */
+public class PooledDataSource extends SimpleDataSource {
+
+    private static final Log log = LogFactory.get();
+
+    private static final int STATE_REMOVED = -1;
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_IN_USE = 1;
+
+    /**
+     * 每个线程最多记录的最近归还连接数
+     */
+    private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+
+    /**
+     * 等待连接时每次阻塞的最长时间,超时后重新扫描空闲连接
+     */
+    private static final long WAIT_SLICE_MILLIS = 100;
+
+    /**
+     * 归还连接时尝试移交给等待线程的最大次数
+     */
+    private static final int MAX_HANDOFF_ATTEMPTS = 64;
+
+    protected int minSize = 0;
+    protected int maxSize = 10;
+    protected long maxWaitMillis = 30 * 1000;
+    protected long idleTimeoutMillis = 10 * 60 * 1000;
+    protected long maxLifetimeMillis = 30 * 60 * 1000;
+    protected int validationTimeoutSeconds = 5;
+    protected long validationIdleMillis = 500;
+    protected long leakDetectionThresholdMillis;
+    protected long housekeepingPeriodMillis = 30 * 1000;
+
+    private final CopyOnWriteArrayList<PoolEntry> entries = new CopyOnWriteArrayList<PoolEntry>();
+
+    private final ThreadLocal<List<PoolEntry>> threadEntries = new ThreadLocal<List<PoolEntry>>() {
+        @Override
+        protected List<PoolEntry> initialValue() {
+            return new ArrayList<PoolEntry>(MAX_THREAD_LOCAL_ENTRIES);
+        }
+    };
+
+    private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<PoolEntry>(true);
+
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong closedCount = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    private volatile boolean closed;
+    private volatile ScheduledExecutorService housekeeper;
+
+    public static DataSource createDataSource(Properties props) {
+        PooledDataSource pds = new PooledDataSource();
+        pds.setUrl(props.getProperty("url", props.getProperty("jdbcUrl")));
+        pds.setPassword(props.getProperty("password"));
+        pds.setUsername(props.getProperty("username"));
+        pds.setMinSize(Integer.parseInt(props.getProperty("minSize", "0")));
+        pds.setMaxSize(Integer.parseInt(props.getProperty("maxSize", "10")));
+        return pds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("DataSource is closed");
+        }
+
+        startHousekeeper();
+
+        long deadline = System.currentTimeMillis() + maxWaitMillis;
+        while (true) {
+            PoolEntry entry = borrow(deadline);
+
+            if (entry == null) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timeout waiting for connection after " + maxWaitMillis + "ms" +
+                        "(active=" + getActiveCount() + ", total=" + getTotalCount() + ")");
+            }
+
+            if (isAlive(entry)) {
+                entry.borrowedAt = System.currentTimeMillis();
+                if (leakDetectionThresholdMillis > 0) {
+                    entry.borrowTrace = new Exception("Connection borrowed here");
+                }
+
+                borrowCount.incrementAndGet();
+                return entry.createProxy();
+            }
+
+            remove(entry);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+
+        for (PoolEntry entry : entries) {
+            remove(entry);
+        }
+    }
+
+    @Override
+    public long getActiveCount() {
+        return countEntries(STATE_IN_USE);
+    }
+
+    public int getIdleCount() {
+        return countEntries(STATE_IDLE);
+    }
+
+    /**
+     * @return 连接总数,包括正在创建的连接
+     */
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    public int getWaitingCount() {
+        return waitingCount.get();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getClosedCount() {
+        return closedCount.get();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    /**
+     * 设置最小连接数,默认为0
+     */
+    public PooledDataSource setMinSize(int minSize) {
+        this.minSize = minSize;
+        return this;
+    }
+
+    /**
+     * 设置最大连接数,默认为10
+     */
+    public PooledDataSource setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * 设置获取连接的最长等待时间(毫秒),默认为30秒
+     */
+    public PooledDataSource setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+        return this;
+    }
+
+    /**
+     * 设置超出最小连接数的空闲连接的最长空闲时间(毫秒),默认为10分钟,0表示不清除
+     */
+    public PooledDataSource setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * 设置连接的最大存活时间(毫秒),默认为30分钟,0表示不限制
+     */
+    public PooledDataSource setMaxLifetimeMillis(long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        return this;
+    }
+
+    /**
+     * 设置借出时校验连接的超时时间(秒),默认为5秒
+     */
+    public PooledDataSource setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        return this;
+    }
+
+    /**
+     * 设置借出时需要校验的最短空闲时间(毫秒),默认为500毫秒,刚归还的连接无需校验
+     */
+    public PooledDataSource setValidationIdleMillis(long validationIdleMillis) {
+        this.validationIdleMillis = validationIdleMillis;
+        return this;
+    }
+
+    /**
+     * 设置连接泄漏检测阈值(毫秒),连接借出超过该时间未归还时输出借出位置,默认为0,即不检测
+     */
+    public PooledDataSource setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        return this;
+    }
+
+    /**
+     * 设置后台维护任务的执行间隔(毫秒),默认为30秒
+     */
+    public PooledDataSource setHousekeepingPeriodMillis(long housekeepingPeriodMillis) {
+        this.housekeepingPeriodMillis = housekeepingPeriodMillis;
+        return this;
+    }
+
+    /**
+     * 借出连接
+     *
+     * @return 连接,超时则返回null
+     */
+    protected PoolEntry borrow(long deadline) throws SQLException {
+        // 当前线程最近归还的连接
+        List<PoolEntry> threadList = threadEntries.get();
+        for (int i = threadList.size() - 1; i >= 0; i--) {
+            PoolEntry entry = threadList.remove(i);
+            if (entry.state.compareAndSet(STATE_IDLE, STATE_IN_USE)) {
+                return entry;
+            }
+        }
+
+        waitingCount.incrementAndGet();
+        try {
+            while (true) {
+                PoolEntry entry = scanIdle();
+                if (entry != null) {
+                    return entry;
+                }
+
+                entry = tryCreate();
+                if (entry != null) {
+                    return entry;
+                }
+
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+
+                entry = handoffQueue.poll(Math.min(remaining, WAIT_SLICE_MILLIS), TimeUnit.MILLISECONDS);
+                if (entry != null && entry.state.compareAndSet(STATE_IDLE, STATE_IN_USE)) {
+                    return entry;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for connection");
+        } finally {
+            waitingCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * 归还连接
+     */
+    protected void release(PoolEntry entry) {
+        entry.lastAccessedAt = System.currentTimeMillis();
+        entry.borrowTrace = null;
+
+        if (closed || entry.broken || isExpired(entry, entry.lastAccessedAt)) {
+            remove(entry);
+            return;
+        }
+
+        entry.state.set(STATE_IDLE);
+
+        List<PoolEntry> threadList = threadEntries.get();
+        if (threadList.size() < MAX_THREAD_LOCAL_ENTRIES) {
+            threadList.add(entry);
+        }
+
+        // 有线程等待时尝试直接移交,等待线程正在扫描或创建连接时将在下次扫描中获取该连接
+        for (int i = 0; i < MAX_HANDOFF_ATTEMPTS && waitingCount.get() > 0; i++) {
+            if (entry.state.get() != STATE_IDLE || handoffQueue.offer(entry)) {
+                return;
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * 清除空闲超时及过期连接,补足最小连接数并检测连接泄漏
+     */
+    protected void housekeep() {
+        long now = System.currentTimeMillis();
+        int evictable = totalCount.get() - minSize;
+
+        for (PoolEntry entry : entries) {
+            int state = entry.state.get();
+
+            if (state == STATE_IDLE) {
+                boolean idleTimeout = idleTimeoutMillis > 0 && evictable > 0
+                        && now - entry.lastAccessedAt > idleTimeoutMillis;
+
+                if ((idleTimeout || isExpired(entry, now))
+                        && entry.state.compareAndSet(STATE_IDLE, STATE_REMOVED)) {
+                    discard(entry);
+                    evictable--;
+                }
+            } else if (state == STATE_IN_USE && leakDetectionThresholdMillis > 0) {
+                Exception trace = entry.borrowTrace;
+                if (trace != null && now - entry.borrowedAt > leakDetectionThresholdMillis) {
+                    entry.borrowTrace = null;
+                    leakCount.incrementAndGet();
+                    log.warn(trace, "Connection leak detection triggered, connection was borrowed {}ms ago",
+                            now - entry.borrowedAt);
+                }
+            }
+        }
+
+        fill();
+    }
+
+    protected void fill() {
+        try {
+            while (!closed && totalCount.get() < minSize) {
+                PoolEntry entry = tryCreate();
+                if (entry == null) {
+                    return;
+                }
+                release(entry);
+            }
+        } catch (SQLException e) {
+            log.warn(e, "Failed to fill connection pool(minSize={})", minSize);
+        }
+    }
+
+    private void startHousekeeper() {
+        if (housekeeper != null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (housekeeper != null || closed) {
+                return;
+            }
+
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "simple-dao-pool-housekeeper");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+            executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        housekeep();
+                    } catch (Exception e) {
+                        log.warn(e, "Connection pool housekeeping failed");
+                    }
+                }
+            }, 0, housekeepingPeriodMillis, TimeUnit.MILLISECONDS);
+
+            housekeeper = executor;
+        }
+    }
+
+    private PoolEntry scanIdle() {
+        for (PoolEntry entry : entries) {
+            if (entry.state.compareAndSet(STATE_IDLE, STATE_IN_USE)) {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 连接数未达上限时创建处于借出状态的新连接
+     */
+    private PoolEntry tryCreate() throws SQLException {
+        while (true) {
+            int total = totalCount.get();
+            if (total >= maxSize) {
+                return null;
+            }
+            if (totalCount.compareAndSet(total, total + 1)) {
+                break;
+            }
+        }
+
+        try {
+            PoolEntry entry = new PoolEntry(createConnection());
+            entries.add(entry);
+            createdCount.incrementAndGet();
+            return entry;
+        } catch (SQLException e) {
+            totalCount.decrementAndGet();
+            throw e;
+        } catch (RuntimeException e) {
+            totalCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean isAlive(PoolEntry entry) {
+        long now = System.currentTimeMillis();
+        if (isExpired(entry, now)) {
+            return false;
+        }
+
+        if (now - entry.lastAccessedAt < validationIdleMillis) {
+            return true;
+        }
+
+        try {
+            return entry.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            log.debug("Connection validation failed:{}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isExpired(PoolEntry entry, long now) {
+        return maxLifetimeMillis > 0 && now - entry.createdAt > maxLifetimeMillis;
+    }
+
+    private void remove(PoolEntry entry) {
+        if (entry.state.getAndSet(STATE_REMOVED) != STATE_REMOVED) {
+            discard(entry);
+        }
+    }
+
+    private void discard(PoolEntry entry) {
+        entries.remove(entry);
+        totalCount.decrementAndGet();
+        closedCount.incrementAndGet();
+
+        try {
+            entry.connection.close();
+        } catch (SQLException e) {
+            // Ignore error
+        }
+    }
+
+    private int countEntries(int state) {
+        int count = 0;
+        for (PoolEntry entry : entries) {
+            if (entry.state.get() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    protected class PoolEntry {
+
+        private final Connection connection;
+        private final AtomicInteger state = new AtomicInteger(STATE_IN_USE);
+        private final long createdAt = System.currentTimeMillis();
+        private final boolean defaultAutoCommit;
+        private final boolean defaultReadOnly;
+        private final int defaultIsolation;
+        private volatile long lastAccessedAt = createdAt;
+        private volatile long borrowedAt;
+        private volatile Exception borrowTrace;
+        private volatile boolean broken;
+
+        PoolEntry(Connection connection) throws SQLException {
+            this.connection = connection;
+            defaultAutoCommit = connection.getAutoCommit();
+            defaultReadOnly = connection.isReadOnly();
+            defaultIsolation = connection.getTransactionIsolation();
+        }
+
+        Connection createProxy() {
+            return (Connection) Proxy.newProxyInstance(
+                    PooledDataSource.class.getClassLoader(),
+                    new Class[]{Connection.class},
+                    new PooledConnectionHandler(this));
+        }
+
+        /**
+         * 恢复连接的默认状态,未提交的事务将被回滚
+         */
+        void reset() throws SQLException {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+            if (connection.getAutoCommit() != defaultAutoCommit) {
+                connection.setAutoCommit(defaultAutoCommit);
+            }
+            if (connection.isReadOnly() != defaultReadOnly) {
+                connection.setReadOnly(defaultReadOnly);
+            }
+            if (connection.getTransactionIsolation() != defaultIsolation) {
+                connection.setTransactionIsolation(defaultIsolation);
+            }
+            connection.clearWarnings();
+        }
+    }
+
+    private class PooledConnectionHandler implements InvocationHandler {
+
+        private final PoolEntry entry;
+        private boolean closed;
+
+        PooledConnectionHandler(PoolEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            int paramCount = method.getParameterTypes().length;
+
+            if ("close".equals(name) && paramCount == 0) {
+                close();
+                return null;
+            }
+            if ("isClosed".equals(name) && paramCount == 0) {
+                return closed || entry.connection.isClosed();
+            }
+            if ("equals".equals(name) && paramCount == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name) && paramCount == 0) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(name) && paramCount == 0) {
+                return "PooledConnection(" + entry.connection + ")";
+            }
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+
+            try {
+                return method.invoke(entry.connection, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQLState为08开头表示连接异常,归还时不再复用
+                if (cause instanceof SQLException) {
+                    String sqlState = ((SQLException) cause).getSQLState();
+                    if (sqlState != null && sqlState.startsWith("08")) {
+                        entry.broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                if (!entry.broken) {
+                    entry.reset();
+                }
+            } catch (SQLException e) {
+                entry.broken = true;
+            }
+
+            release(entry);
+        }
+    }
+}
\ No newline at end of file
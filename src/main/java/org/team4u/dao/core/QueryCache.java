@@ -0,0 +1,466 @@
+package org.team4u.dao.core;
+
+import org.team4u.dao.util.CopyUtil;
+import org.team4u.sql.builder.Sql;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按SQL及参数缓存查询结果,仅缓存已注册的结果类型
+ * <p>
+ * 缓存及返回的均为结果的拷贝;缓存总大小按估算的内存占用限制,超出时清除最久未访问的结果;
+ * 写入某表时清除所有引用了该表的查询结果
+ *
+ * @author Jay Wu
+ */
+public class QueryCache {
+
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    private static final Pattern WRITE_TABLE_PATTERN =
+            Pattern.compile("\\b(?:UPDATE|INTO|FROM|TABLE)\\s+([\\w$.`\"\\[\\]]+)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * FROM/JOIN等关键字后的表名,包括FROM后以逗号分隔的多个表及其别名
+     */
+    private static final Pattern TABLE_REFERENCE_PATTERN;
+
+    static {
+        String table = "[\\w$.`\"\\[\\]]+";
+        // 别名不能为表名之后可能出现的关键字,否则将吞掉其后的JOIN等
+        String alias = "(?:\\s+(?:AS\\s+)?(?!(?:JOIN|INNER|LEFT|RIGHT|FULL|CROSS|NATURAL|OUTER|STRAIGHT_JOIN|ON|USING"
+                + "|WHERE|GROUP|HAVING|ORDER|LIMIT|OFFSET|FETCH|FOR|UNION|EXCEPT|INTERSECT|MINUS|SET|VALUES|WINDOW)\\b)[\\w$]+)?";
+        TABLE_REFERENCE_PATTERN = Pattern.compile(
+                "\\b(?:FROM|JOIN|INTO|UPDATE|TABLE)\\s+(" + table + alias + "(?:\\s*,\\s*" + table + alias + ")*)",
+                Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * 估算对象大小时的最大递归深度
+     */
+    private static final int MAX_ESTIMATE_DEPTH = 4;
+
+    private final Set<Class<?>> resultClasses =
+            Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+
+    private final LinkedHashMap<Key, CachedResult> entries = new LinkedHashMap<Key, CachedResult>(16, 0.75f, true);
+
+    /**
+     * 表名与引用该表的查询之间的索引
+     */
+    private final Map<String, Set<Key>> tableIndex = new HashMap<String, Set<Key>>();
+
+    private final long maxBytes;
+
+    private final long ttlMillis;
+
+    private long bytes;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    public QueryCache(long ttlMillis) {
+        this(DEFAULT_MAX_BYTES, ttlMillis);
+    }
+
+    /**
+     * @param maxBytes  缓存结果估算的最大内存占用(字节)
+     * @param ttlMillis 有效期(毫秒),小于等于0则永不过期
+     */
+    public QueryCache(long maxBytes, long ttlMillis) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 注册需要缓存查询结果的类型,如字典等变更较少的实体类
+     *
+     * @throws IllegalArgumentException 类型的值无法拷贝,如缺少无参构造函数或包含final字段
+     */
+    public QueryCache register(Class<?>... resultClasses) {
+        for (Class<?> resultClass : resultClasses) {
+            CopyUtil.checkCopyable(resultClass);
+        }
+        this.resultClasses.addAll(Arrays.asList(resultClasses));
+        return this;
+    }
+
+    public boolean isCached(Class<?> resultClass) {
+        return resultClasses.contains(resultClass);
+    }
+
+    /**
+     * 获取缓存的查询结果
+     *
+     * @param list 是否为列表查询
+     * @return 查询结果的拷贝,未缓存或已过期则返回null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Class<?> resultClass, boolean list, Sql sql) {
+        Key key = new Key(resultClass, list, sql);
+        CachedResult result;
+
+        synchronized (entries) {
+            result = entries.get(key);
+
+            if (result != null && result.isExpired()) {
+                remove(key);
+                result = null;
+            }
+        }
+
+        if (result == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        hitCount.incrementAndGet();
+        return (T) CopyUtil.copy(result.value);
+    }
+
+    /**
+     * 获取缓存版本,查询数据库前获取,写入缓存时用于判断期间是否发生过清除
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 缓存查询结果,若查询期间缓存发生过清除则放弃写入,避免缓存旧数据
+     *
+     * @param version 查询数据库前通过getVersion获取的版本
+     */
+    public void put(Class<?> resultClass, boolean list, Sql sql, Object value, long version) {
+        if (value == null) {
+            return;
+        }
+
+        Object copy = CopyUtil.copy(value);
+        long size = estimateSize(copy, 0);
+        if (size > maxBytes) {
+            return;
+        }
+
+        Key key = new Key(resultClass, list, sql);
+        Set<String> tables = queryTables(sql.getContent());
+        long expireAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+
+        synchronized (entries) {
+            if (this.version.get() != version) {
+                return;
+            }
+
+            remove(key);
+            entries.put(key, new CachedResult(copy, size, tables, expireAt));
+            bytes += size;
+
+            for (String table : tables) {
+                Set<Key> keys = tableIndex.get(table);
+                if (keys == null) {
+                    keys = new HashSet<Key>();
+                    tableIndex.put(table, keys);
+                }
+                keys.add(key);
+            }
+
+            Iterator<Map.Entry<Key, CachedResult>> it = entries.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<Key, CachedResult> eldest = it.next();
+                CachedResult eldestResult = eldest.getValue();
+                it.remove();
+                unindex(eldest.getKey(), eldestResult);
+            }
+        }
+    }
+
+    /**
+     * 清除所有引用了指定表的查询结果
+     */
+    public void invalidate(String table) {
+        String name = normalizeTable(table);
+
+        synchronized (entries) {
+            version.incrementAndGet();
+
+            Set<Key> keys = tableIndex.remove(name);
+            if (keys == null) {
+                return;
+            }
+
+            for (Key key : keys) {
+                remove(key);
+            }
+        }
+    }
+
+    /**
+     * 清除写入语句所涉及的表的查询结果,无法识别表名时清除所有结果
+     */
+    public void invalidate(Sql sql) {
+        Set<String> tables = writeTables(sql.getContent());
+        if (tables.isEmpty()) {
+            clear();
+            return;
+        }
+
+        for (String table : tables) {
+            invalidate(table);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            version.incrementAndGet();
+            entries.clear();
+            tableIndex.clear();
+            bytes = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return 缓存结果估算的内存占用(字节)
+     */
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return 命中率,未访问时为0
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 估算对象的内存占用(字节),仅用于限制缓存大小,无需精确
+     */
+    protected long estimateSize(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+
+        if (value instanceof BigDecimal || value instanceof BigInteger) {
+            return 48;
+        }
+
+        if (CopyUtil.isImmutable(value) || value instanceof Date) {
+            return 24;
+        }
+
+        if (depth >= MAX_ESTIMATE_DEPTH) {
+            return 16;
+        }
+
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            long size = 16 + 8L * length;
+            for (int i = 0; i < length; i++) {
+                size += estimateSize(Array.get(value, i), depth + 1);
+            }
+            return size;
+        }
+
+        if (value instanceof Collection) {
+            long size = 32;
+            for (Object element : (Collection<?>) value) {
+                size += 16 + estimateSize(element, depth + 1);
+            }
+            return size;
+        }
+
+        if (value instanceof Map) {
+            long size = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += 32 + estimateSize(entry.getKey(), depth + 1) + estimateSize(entry.getValue(), depth + 1);
+            }
+            return size;
+        }
+
+        Field[] fields = CopyUtil.getFields(value.getClass());
+        long size = 16 + 8L * fields.length;
+        for (Field field : fields) {
+            try {
+                size += estimateSize(field.get(value), depth + 1);
+            } catch (IllegalAccessException e) {
+                // Ignore error
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 获取查询引用的表名,即FROM/JOIN/INTO/UPDATE/TABLE之后的标识符,子查询中的表同样计入
+     */
+    protected Set<String> queryTables(String sql) {
+        Set<String> tables = new HashSet<String>();
+        Matcher matcher = TABLE_REFERENCE_PATTERN.matcher(sql);
+        while (matcher.find()) {
+            for (String reference : matcher.group(1).split(",")) {
+                // 去除别名
+                tables.add(normalizeTable(reference.trim().split("\\s+")[0]));
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 获取写入语句涉及的表名
+     */
+    protected Set<String> writeTables(String sql) {
+        Set<String> tables = new HashSet<String>();
+        Matcher matcher = WRITE_TABLE_PATTERN.matcher(sql);
+        while (matcher.find()) {
+            tables.add(normalizeTable(matcher.group(1)));
+        }
+        return tables;
+    }
+
+    /**
+     * 去除表名的引号及schema前缀并转为小写
+     */
+    protected String normalizeTable(String table) {
+        String name = table.replaceAll("[`\"\\[\\]]", "");
+        int index = name.lastIndexOf('.');
+        if (index >= 0) {
+            name = name.substring(index + 1);
+        }
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+
+    private void remove(Key key) {
+        CachedResult result = entries.remove(key);
+        if (result != null) {
+            unindex(key, result);
+        }
+    }
+
+    private void unindex(Key key, CachedResult result) {
+        if (result == null) {
+            return;
+        }
+
+        bytes -= result.size;
+        for (String table : result.tables) {
+            Set<Key> keys = tableIndex.get(table);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    tableIndex.remove(table);
+                }
+            }
+        }
+    }
+
+    private static class Key {
+
+        private final Class<?> resultClass;
+        private final boolean list;
+        private final String content;
+        private final Object[] params;
+        private final int hashCode;
+
+        Key(Class<?> resultClass, boolean list, Sql sql) {
+            this.resultClass = resultClass;
+            this.list = list;
+            this.content = sql.getContent();
+            this.params = sql.getParams() == null ? null : sql.getParams().clone();
+
+            int result = resultClass.hashCode();
+            result = 31 * result + (list ? 1 : 0);
+            result = 31 * result + content.hashCode();
+            hashCode = 31 * result + Arrays.deepHashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return hashCode == key.hashCode
+                    && list == key.list
+                    && resultClass == key.resultClass
+                    && content.equals(key.content)
+                    && Arrays.deepEquals(params, key.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class CachedResult {
+
+        private final Object value;
+        private final long size;
+        private final Set<String> tables;
+        private final long expireAt;
+
+        CachedResult(Object value, long size, Set<String> tables, long expireAt) {
+            this.value = value;
+            this.size = size;
+            this.tables = tables;
+            this.expireAt = expireAt;
+        }
+
+        boolean isExpired() {
+            return expireAt < System.currentTimeMillis();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package org.team4u.dao.core;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.team4u.kit.core.error.ExceptionUtil;
+
+import java.io.Closeable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 按需逐行读取ResultSet的迭代器
+ * <p>
+ * 迭代期间将一直占用数据库连接,迭代结束后自动关闭;若提前结束迭代,请务必调用close()
+ *
+ * @author Jay Wu
+ */
+public class ResultIterator<T> implements Iterator<T>, Closeable {
+
+    private final ResultSet rs;
+
+    private final ResultSetHandler<T> rowHandler;
+
+    private Boolean hasNext;
+
+    private boolean closed;
+
+    /**
+     * @param rs         待迭代的ResultSet
+     * @param rowHandler 单行处理器,仅转换当前行
+     */
+    public ResultIterator(ResultSet rs, ResultSetHandler<T> rowHandler) {
+        this.rs = rs;
+        this.rowHandler = rowHandler;
+    }
+
+    /**
+     * 不基于ResultSet的迭代器,子类需重写fetch()及read()
+     */
+    protected ResultIterator() {
+        this(null, null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+
+        if (hasNext == null) {
+            try {
+                hasNext = fetch();
+            } catch (SQLException e) {
+                close();
+                throw ExceptionUtil.toRuntimeException(e);
+            }
+
+            if (!hasNext) {
+                close();
+            }
+        }
+
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        hasNext = null;
+
+        try {
+            return read();
+        } catch (SQLException e) {
+            close();
+            throw ExceptionUtil.toRuntimeException(e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 释放ResultSet及数据库连接,可重复调用
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        onClose();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 移动到下一条记录
+     *
+     * @return 是否存在下一条记录
+     */
+    protected boolean fetch() throws SQLException {
+        return rs.next();
+    }
+
+    /**
+     * 读取当前记录
+     */
+    protected T read() throws SQLException {
+        return rowHandler.handle(rs);
+    }
+
+    /**
+     * 迭代器关闭时回调,用于释放ResultSet、Statement及连接
+     */
+    protected void onClose() {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,383 @@
+package org.team4u.dao.core;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.team4u.kit.core.lang.Pager;
+import org.team4u.sql.builder.Sql;
+import org.team4u.sql.builder.entity.builder.EntitySqlBuilder;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于线程池的AsyncDao实现
+ * <p>
+ * 每个操作在工作线程中调用同步Dao执行,连接的获取与释放仍由Dao的ConnectionHandler负责;
+ * 当前线程处于事务中,或无法判断事务状态(如Dao不是SimpleDao)时,操作直接在当前线程中执行
+ *
+ * @author Jay Wu
+ */
+public class SimpleAsyncDao implements AsyncDao {
+
+    private static final Log log = LogFactory.get();
+
+    public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    protected final Dao dao;
+
+    protected final ExecutorService executorService;
+
+    /**
+     * 使用默认线程池,线程数为CPU核数的两倍
+     */
+    public SimpleAsyncDao(Dao dao) {
+        this(dao, Runtime.getRuntime().availableProcessors() * 2, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * @param maxThreads 最大线程数,建议不超过连接池的最大连接数
+     * @param queueSize  等待队列长度,队列已满时提交将抛出RejectedExecutionException
+     */
+    public SimpleAsyncDao(Dao dao, int maxThreads, int queueSize) {
+        this(dao, createExecutorService(maxThreads, queueSize));
+    }
+
+    public SimpleAsyncDao(Dao dao, ExecutorService executorService) {
+        this.dao = dao;
+        this.executorService = executorService;
+    }
+
+    /**
+     * 创建有界线程池,运行环境支持虚拟线程(JDK 21+)时使用虚拟线程
+     */
+    public static ExecutorService createExecutorService(int maxThreads, int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize),
+                createThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, "simple-dao-async-", 0L);
+            Method factory = builderClass.getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (Exception e) {
+            log.debug("Virtual thread is not available, use platform thread");
+        }
+
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "simple-dao-async-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    @Override
+    public <T> Future<T> queryWithPkForObject(final Class<T> resultClass, final Object... ids) {
+        return submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return dao.queryWithPkForObject(resultClass, ids);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<List<T>> queryWithPkForList(final Class<T> resultClass, final Collection<?> ids) {
+        return submit(new Callable<List<T>>() {
+            @Override
+            public List<T> call() throws Exception {
+                return dao.queryWithPkForList(resultClass, ids);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<Map<Object, T>> queryWithPkForMap(final Class<T> resultClass, final Collection<?> ids) {
+        return submit(new Callable<Map<Object, T>>() {
+            @Override
+            public Map<Object, T> call() throws Exception {
+                return dao.queryWithPkForMap(resultClass, ids);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<T> queryForObject(final Class<T> resultClass, final Sql sql) {
+        return submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return dao.queryForObject(resultClass, sql);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<T> queryForObject(final EntitySqlBuilder<T> sqlBuilder) {
+        return submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return dao.queryForObject(sqlBuilder);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<List<T>> queryForList(final Class<T> resultClass, final Sql sql) {
+        return submit(new Callable<List<T>>() {
+            @Override
+            public List<T> call() throws Exception {
+                return dao.queryForList(resultClass, sql);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<List<T>> queryForList(final EntitySqlBuilder<T> sqlBuilder) {
+        return submit(new Callable<List<T>>() {
+            @Override
+            public List<T> call() throws Exception {
+                return dao.queryForList(sqlBuilder);
+            }
+        });
+    }
+
+    @Override
+    public Future<long[]> queryForLongs(final Sql sql) {
+        return submit(new Callable<long[]>() {
+            @Override
+            public long[] call() throws Exception {
+                return dao.queryForLongs(sql);
+            }
+        });
+    }
+
+    @Override
+    public Future<int[]> queryForInts(final Sql sql) {
+        return submit(new Callable<int[]>() {
+            @Override
+            public int[] call() throws Exception {
+                return dao.queryForInts(sql);
+            }
+        });
+    }
+
+    @Override
+    public Future<double[]> queryForDoubles(final Sql sql) {
+        return submit(new Callable<double[]>() {
+            @Override
+            public double[] call() throws Exception {
+                return dao.queryForDoubles(sql);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<List<T>> queryForList(final Class<T> resultClass, final Sql sql, final Pager pager) {
+        return submit(new Callable<List<T>>() {
+            @Override
+            public List<T> call() throws Exception {
+                return dao.queryForList(resultClass, sql, pager);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<List<T>> queryForList(final EntitySqlBuilder<T> sqlBuilder, final Pager pager) {
+        return submit(new Callable<List<T>>() {
+            @Override
+            public List<T> call() throws Exception {
+                return dao.queryForList(sqlBuilder, pager);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<T> query(final ResultSetHandler<T> handler, final Sql sql) {
+        return submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return dao.query(handler, sql);
+            }
+        });
+    }
+
+    @Override
+    public Future<Integer> count(final Sql sql) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return dao.count(sql);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<T> insert(final T entity) {
+        return submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return dao.insert(entity);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<int[]> insert(final List<T> entities) {
+        return submit(new Callable<int[]>() {
+            @Override
+            public int[] call() throws Exception {
+                return dao.insert(entities);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<int[]> fastInsert(final List<T> entities) {
+        return submit(new Callable<int[]>() {
+            @Override
+            public int[] call() throws Exception {
+                return dao.fastInsert(entities);
+            }
+        });
+    }
+
+    @Override
+    public Future<Integer> update(final Object entity) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return dao.update(entity);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<int[]> update(final List<T> entities) {
+        return submit(new Callable<int[]>() {
+            @Override
+            public int[] call() throws Exception {
+                return dao.update(entities);
+            }
+        });
+    }
+
+    @Override
+    public Future<Integer> delete(final Object entity) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return dao.delete(entity);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<Integer> deleteWithPK(final Class<T> resultClass, final Object... ids) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return dao.deleteWithPK(resultClass, ids);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<int[]> delete(final List<T> entities) {
+        return submit(new Callable<int[]>() {
+            @Override
+            public int[] call() throws Exception {
+                return dao.delete(entities);
+            }
+        });
+    }
+
+    @Override
+    public Future<Integer> execute(final Sql sql) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return dao.execute(sql);
+            }
+        });
+    }
+
+    @Override
+    public Future<int[]> execute(final List<Sql> sqlList) {
+        return submit(new Callable<int[]>() {
+            @Override
+            public int[] call() throws Exception {
+                return dao.execute(sqlList);
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<T> execute(final ConnectionCallback<T> connectionCallback) {
+        return submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return dao.execute(connectionCallback);
+            }
+        });
+    }
+
+    @Override
+    public Dao getDao() {
+        return dao;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    @Override
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    /**
+     * 提交操作,当前线程存在事务时直接在当前线程中执行
+     */
+    protected <T> Future<T> submit(Callable<T> task) {
+        if (isTransactionBound()) {
+            FutureTask<T> future = new FutureTask<T>(task);
+            future.run();
+            return future;
+        }
+
+        return executorService.submit(task);
+    }
+
+    /**
+     * 判断当前线程是否存在事务,事务连接与线程绑定,无法在其他线程中使用
+     * <p>
+     * 事务状态由SimpleDao的ConnectionHandler判断(包括Spring事务),无法判断时视为存在事务
+     */
+    protected boolean isTransactionBound() {
+        return !(dao instanceof SimpleDao) || ((SimpleDao) dao).isInTransaction();
+    }
+}
\ No newline at end of file
@@ -2,12 +2,22 @@ package org.team4u.dao.core;
 
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.lang.Assert;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import org.apache.commons.dbutils.DbUtils;
 import org.apache.commons.dbutils.QueryRunner;
 import org.apache.commons.dbutils.ResultSetHandler;
+import org.apache.commons.dbutils.StatementConfiguration;
 import org.team4u.dao.resultset.handler.DefaultResultSetHandlerSelector;
+import org.team4u.dao.resultset.handler.DoubleArrayHandler;
+import org.team4u.dao.resultset.handler.IntArrayHandler;
+import org.team4u.dao.resultset.handler.LongArrayHandler;
 import org.team4u.dao.resultset.handler.ResultSetHandlerSelector;
 import org.team4u.dao.transaction.ConnectionHandler;
 import org.team4u.dao.transaction.DefaultConnectionHandler;
+import org.team4u.dao.transaction.ReadWriteConnectionHandler;
+import org.team4u.dao.transaction.TransactionAwareConnectionHandler;
+import org.team4u.dao.util.DbUtil;
 import org.team4u.kit.core.action.Callback;
 import org.team4u.kit.core.action.Function;
 import org.team4u.kit.core.error.ExceptionUtil;
@@ -25,20 +35,64 @@ import org.team4u.sql.builder.util.SqlBuilders;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Jay Wu
  */
 public class SimpleDao implements Dao {
 
+    private static final Log log = LogFactory.get();
+
+    /**
+     * 游标读取时每次从数据库获取的记录数
+     */
+    protected static final int DEFAULT_STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * 批量主键查询时单条语句的最大主键个数,Oracle的IN列表最多允许1000个值
+     */
+    protected static final int MAX_PK_IN_SIZE = 1000;
+
+    /**
+     * 原SQL最外层包含这些子句时,keyset条件无法直接追加
+     */
+    private static final String[] KEYSET_INCOMPATIBLE_KEYWORDS =
+            {"ORDER BY", "GROUP BY", "HAVING", "UNION", "INTERSECT", "EXCEPT", "LIMIT", "OFFSET", "FETCH", "FOR UPDATE"};
+
+    /**
+     * 支持行值比较的数据库,即DbUtil.getDatabaseProductName的部分名称
+     */
+    private static final String[] ROW_VALUE_COMPARISON_DATABASES = {"mysql", "mariadb", "postgresql", "hsql", "h2", "db2"};
+
     protected QueryRunner queryRunner;
     protected DataSource dataSource;
     protected Dialect dialect;
     protected ResultSetHandlerSelector resultSetHandlerSelector;
     protected ConnectionHandler connectionHandler;
+    protected boolean skipBuiltSqlValidation;
+    protected int multiRowInsertSize;
+    /**
+     * 数据库单条语句允许的最大参数个数,-1表示尚未检测
+     */
+    protected volatile int maxBindParameters = -1;
+    protected boolean windowCount;
+    protected volatile Boolean windowCountSupported;
+    protected volatile Boolean rowValueComparisonSupported;
+    protected CountCache countCache = new CountCache();
+    protected EntityCache entityCache;
+    protected QueryCache queryCache;
 
     public SimpleDao(DataSource dataSource,
                      ResultSetHandlerSelector resultSetHandlerSelector,
@@ -66,22 +120,113 @@ public class SimpleDao implements Dao {
 
     @Override
     public <T> T queryWithPkForObject(Class<T> resultClass, Object... ids) {
-        return queryForObject(resultClass, SqlBuilders.select(resultClass).withPK(ids).create());
+        // 事务内可能读取到未提交的数据,不使用缓存
+        if (entityCache == null || !entityCache.isCached(resultClass) || isInTransaction()) {
+            return queryForObject(resultClass, trusted(SqlBuilders.select(resultClass).withPK(ids).create()));
+        }
+
+        Object key = EntityCache.keyOf(ids);
+        T value = entityCache.get(resultClass, key);
+        if (value != null) {
+            return value;
+        }
+
+        long version = entityCache.getVersion(resultClass);
+        value = queryForObject(resultClass, trusted(SqlBuilders.select(resultClass).withPK(ids).create()));
+        entityCache.put(key, value, version);
+        return value;
+    }
+
+    @Override
+    public <T> List<T> queryWithPkForList(Class<T> resultClass, Collection<?> ids) {
+        return new ArrayList<T>(queryWithPkForMap(resultClass, ids).values());
+    }
+
+    @Override
+    public <T> Map<Object, T> queryWithPkForMap(final Class<T> resultClass, Collection<?> ids) {
+        Map<Object, T> result = new LinkedHashMap<Object, T>();
+        if (CollectionUtil.isEmpty(ids)) {
+            return result;
+        }
+
+        Entity<?> entity = EntitySqlBuilder.DEFAULT_ENTITY_MANAGER.createIfNotExist(resultClass);
+        Assert.notNull(entity, "Not entity class:" + resultClass);
+        final List<Entity.Column> idColumns = entity.getIdColumns();
+        Assert.notEmpty(idColumns, "No primary key:" + resultClass);
+
+        // 规范化后的主键,用于去重及匹配查询结果
+        Map<Object, Object> requestedIds = new LinkedHashMap<Object, Object>();
+        final Map<Object, Object[]> pendingIds = new LinkedHashMap<Object, Object[]>();
+        for (Object id : ids) {
+            if (id == null) {
+                continue;
+            }
+
+            Object[] values = pkValues(id, idColumns.size());
+            Object key = EntityCache.keyOf(values);
+            if (!requestedIds.containsKey(key)) {
+                requestedIds.put(key, idColumns.size() == 1 ? id : key);
+                pendingIds.put(key, values);
+            }
+        }
+
+        Map<Object, T> found = new HashMap<Object, T>();
+        boolean cacheable = entityCache != null && entityCache.isCached(resultClass) && !isInTransaction();
+        long version = 0;
+        if (cacheable) {
+            for (Iterator<Object> it = pendingIds.keySet().iterator(); it.hasNext(); ) {
+                Object key = it.next();
+                T value = entityCache.get(resultClass, key);
+                if (value != null) {
+                    found.put(key, value);
+                    it.remove();
+                }
+            }
+            version = entityCache.getVersion(resultClass);
+        }
+
+        if (!pendingIds.isEmpty()) {
+            List<T> values = executeRead(new ConnectionCallback<List<T>>() {
+                @Override
+                public List<T> doInConnection(Connection connection) throws SQLException {
+                    return queryWithPkInChunks(connection, resultClass, idColumns,
+                            new ArrayList<Object[]>(pendingIds.values()));
+                }
+            });
+
+            for (T value : values) {
+                Object key = EntityCache.keyOf(keysetValues(idColumns, value));
+                found.put(key, value);
+
+                if (cacheable) {
+                    entityCache.put(key, value, version);
+                }
+            }
+        }
+
+        for (Map.Entry<Object, Object> entry : requestedIds.entrySet()) {
+            T value = found.get(entry.getKey());
+            if (value != null) {
+                result.put(entry.getValue(), value);
+            }
+        }
+
+        return result;
     }
 
     @Override
     public <T> T queryForObject(Class<T> resultClass, Sql sql) {
-        return query(resultSetHandlerSelector.selectForObject(resultClass), sql);
+        return queryWithCache(resultClass, false, resultSetHandlerSelector.selectForObject(resultClass), sql);
     }
 
     @Override
     public <T> T queryForObject(EntitySqlBuilder<T> sqlBuilder) {
-        return (T) queryForObject(sqlBuilder.getEntity().getClassRef(), sqlBuilder.create());
+        return (T) queryForObject(sqlBuilder.getEntity().getClassRef(), trusted(sqlBuilder.create()));
     }
 
     @Override
     public <T> List<T> queryForList(Class<T> resultClass, Sql sql) {
-        return query(resultSetHandlerSelector.selectForList(resultClass), sql);
+        return queryWithCache(resultClass, true, resultSetHandlerSelector.selectForList(resultClass), sql);
     }
 
     @Override
@@ -90,22 +235,61 @@ public class SimpleDao implements Dao {
     }
 
     @Override
-    public <T> T query(final ResultSetHandler<T> handler, final Sql sql) {
-        return execute(new ConnectionCallback<T>() {
+    public long[] queryForLongs(Sql sql) {
+        return query(new LongArrayHandler(), sql);
+    }
+
+    @Override
+    public int[] queryForInts(Sql sql) {
+        return query(new IntArrayHandler(), sql);
+    }
+
+    @Override
+    public double[] queryForDoubles(Sql sql) {
+        return query(new DoubleArrayHandler(), sql);
+    }
+
+    @Override
+    public <T> T query(ResultSetHandler<T> handler, Sql sql) {
+        return query(handler, sql, null);
+    }
+
+    @Override
+    public <T> T query(final ResultSetHandler<T> handler,
+                       final Sql sql,
+                       final StatementConfiguration config) {
+        return executeRead(new ConnectionCallback<T>() {
             @Override
             public T doInConnection(Connection connection) throws SQLException {
-                return queryRunner.query(connection, sql.getContent(), handler, sql.getParams());
+                return queryRunner.query(connection, config, sql.getContent(), handler, sql.getParams());
             }
         });
     }
 
     @Override
     public <T> List<T> queryForList(Class<T> resultClass, Sql sql, Pager pager) {
+        return queryForList(resultClass, sql, pager, null);
+    }
+
+    @Override
+    public <T> List<T> queryForList(Class<T> resultClass, Sql sql, Pager pager, StatementConfiguration config) {
+        ResultSetHandler<List<T>> handler = resultSetHandlerSelector.selectForList(resultClass);
+
         if (pager != null && pager.isAutoCount()) {
-            pager.setRecordCount(count(sql));
+            Integer recordCount = countCache.get(sql);
+
+            if (recordCount != null) {
+                pager.setRecordCount(recordCount);
+            } else if (windowCount) {
+                return queryForListWithWindowCount(handler, sql, pager, config);
+            } else {
+                recordCount = count(sql);
+                countCache.put(sql, recordCount);
+                pager.setRecordCount(recordCount);
+            }
         }
 
-        return queryForList(resultClass, createPagerSql(sql, pager));
+        return query(handler, createPagerSql(sql, pager), config);
     }
 
     @Override
@@ -131,7 +315,34 @@ public class SimpleDao implements Dao {
 
     @Override
     public <T> void each(Class<T> resultClass, Sql sql, Pager pager, Callback<T> callback) {
-        query(resultSetHandlerSelector.selectForCallback(resultClass, callback), createPagerSql(sql, pager));
+        each(resultClass, sql, pager, callback, null);
+    }
+
+    @Override
+    public <T> void each(Class<T> resultClass,
+                         Sql sql,
+                         Pager pager,
+                         Callback<T> callback,
+                         final StatementConfiguration config) {
+        final ResultSetHandler<T> handler = resultSetHandlerSelector.selectForCallback(resultClass, callback);
+        final Sql pagerSql = createPagerSql(sql, pager);
+
+        executeRead(new ConnectionCallback<Void>() {
+            @Override
+            public Void doInConnection(Connection connection) throws SQLException {
+                boolean autoCommitChanged = beginStreaming(connection);
+                try {
+                    queryRunner.query(connection,
+                            withStreamingDefaults(connection, config),
+                            pagerSql.getContent(),
+                            handler,
+                            pagerSql.getParams());
+                } finally {
+                    endStreaming(connection, autoCommitChanged);
+                }
+                return null;
+            }
+        });
     }
 
     @Override
@@ -141,6 +352,103 @@ public class SimpleDao implements Dao {
         each(clazz, sqlBuilder.create(), pager, callback);
     }
 
+    @Override
+    public <T> ResultIterator<T> stream(Class<T> resultClass, Sql sql) {
+        return stream(resultClass, sql, null);
+    }
+
+    @Override
+    public <T> ResultIterator<T> stream(Class<T> resultClass, Sql sql, StatementConfiguration config) {
+        final ResultSetHandler<T> rowHandler = resultSetHandlerSelector.selectForRow(resultClass);
+
+        Connection connection = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        boolean autoCommitChanged = false;
+
+        try {
+            connection = getConnection(true);
+            stmt = connection.prepareStatement(sql.getContent(),
+                    ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            autoCommitChanged = beginStreaming(connection);
+            queryRunner.configureStatement(stmt, withStreamingDefaults(connection, config));
+            queryRunner.fillStatement(sql.getContent(), stmt, sql.getParams());
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            closeStream(connection, stmt, rs, autoCommitChanged);
+            throw ExceptionUtil.toRuntimeException(e);
+        }
+
+        final Connection streamConnection = connection;
+        final PreparedStatement streamStatement = stmt;
+        final ResultSet streamResultSet = rs;
+        final boolean streamAutoCommitChanged = autoCommitChanged;
+
+        return new ResultIterator<T>(rs, rowHandler) {
+            @Override
+            protected void onClose() {
+                closeStream(streamConnection, streamStatement, streamResultSet, streamAutoCommitChanged);
+            }
+        };
+    }
+
+    @Override
+    public <T> ResultIterator<T> stream(EntitySqlBuilder<T> sqlBuilder) {
+        Class<T> clazz = (Class<T>) sqlBuilder.getEntity().getClassRef();
+        return stream(clazz, sqlBuilder.create());
+    }
+
+    @Override
+    public <T> void eachByKeyset(Class<T> entityClass, Sql sql, KeysetPager pager, Callback<T> callback) {
+        ResultIterator<T> it = streamByKeyset(entityClass, sql, pager);
+        while (it.hasNext()) {
+            callback.invoke(it.next());
+        }
+    }
+
+    @Override
+    public <T> void eachByKeyset(EntitySqlBuilder<T> sqlBuilder, KeysetPager pager, Callback<T> callback) {
+        Class<T> clazz = (Class<T>) sqlBuilder.getEntity().getClassRef();
+        eachByKeyset(clazz, sqlBuilder.create(), pager, callback);
+    }
+
+    @Override
+    public <T> ResultIterator<T> streamByKeyset(final Class<T> entityClass, final Sql sql, final KeysetPager pager) {
+        final List<Entity.Column> columns = keysetColumns(entityClass, pager);
+
+        return new ResultIterator<T>() {
+
+            private Iterator<T> page;
+            private boolean lastPage;
+
+            @Override
+            protected boolean fetch() {
+                while (page == null || !page.hasNext()) {
+                    if (lastPage) {
+                        return false;
+                    }
+
+                    List<T> values = queryForList(entityClass, createKeysetSql(sql, columns, pager));
+                    lastPage = values.size() < pager.getPageSize();
+                    if (values.isEmpty()) {
+                        return false;
+                    }
+
+                    pager.setLastKeys(keysetValues(columns, values.get(values.size() - 1)));
+                    page = values.iterator();
+                }
+
+                return true;
+            }
+
+            @Override
+            protected T read() {
+                return page.next();
+            }
+        };
+    }
+
     @Override
     public <T> T insert(final T entity) {
         return insert(entity, null, false);
@@ -152,16 +460,16 @@ public class SimpleDao implements Dao {
             return null;
         }
 
-        final Sql sql = SqlBuilders.insert(entity)
+        final Sql sql = trusted(SqlBuilders.insert(entity)
                 .columns(activatedColumns)
                 .setInsertIgnoreNull(ignoreNull)
-                .create();
+                .create());
 
         final Pair<Entity.Column, ResultSetHandler<Object>> pkHandler =
                 resultSetHandlerSelector.selectForPK(entity.getClass());
 
         if (pkHandler == null) {
-            execute(sql);
+            executeUpdate(sql);
         } else {
             execute(new ConnectionCallback<Void>() {
                 @Override
@@ -179,6 +487,7 @@ public class SimpleDao implements Dao {
             });
         }
 
+        evictCaches(entity);
         return entity;
     }
 
@@ -188,7 +497,7 @@ public class SimpleDao implements Dao {
     }
 
     @Override
-    public <T> int[] insert(List<T> entities, String activatedColumns, boolean ignoreNull) {
+    public <T> int[] insert(final List<T> entities, final String activatedColumns, final boolean ignoreNull) {
         if (CollectionUtil.isEmpty(entities)) {
             return EmptyValue.EMPTY_INT_ARRAY;
         }
@@ -198,15 +507,67 @@ public class SimpleDao implements Dao {
 
         if (idObjectHandler == null) {
             return fastInsert(entities, activatedColumns, ignoreNull);
-        } else {
-            for (T entity : entities) {
-                insert(entity, activatedColumns, ignoreNull);
+        }
+
+        final List<Sql> sqlList = CollectionExUtil.collect(entities, new Function<T, Sql>() {
+            @Override
+            public Sql invoke(T entity) {
+                return trusted(SqlBuilders.insert(entity)
+                        .columns(activatedColumns)
+                        .setInsertIgnoreNull(ignoreNull)
+                        .create());
             }
+        });
 
-            int[] result = new int[entities.size()];
-            Arrays.fill(result, 1);
-            return result;
+        final Entity.Column idColumn = idObjectHandler.getKey();
+        final ResultSetHandler<? extends List<?>> keysHandler =
+                resultSetHandlerSelector.selectForList(idColumn.getProperty().getType());
+
+        final int[] result = new int[entities.size()];
+        try {
+            execute(new ConnectionCallback<Void>() {
+                @Override
+                public Void doInConnection(Connection connection) throws SQLException {
+                    int begin = 0;
+                    while (begin < sqlList.size()) {
+                        // ignoreNull时各实体SQL可能不同,相同SQL的相邻实体合并为一个批次
+                        String sql = sqlList.get(begin).getContent();
+                        int end = begin + 1;
+                        while (end < sqlList.size() && sql.equals(sqlList.get(end).getContent())) {
+                            end++;
+                        }
+
+                        Object[][] params = new Object[end - begin][];
+                        for (int i = begin; i < end; i++) {
+                            params[i - begin] = sqlList.get(i).getParams();
+                        }
+
+                        int[] rows = new int[params.length];
+                        List<?> keys = queryRunner.insertBatch(connection, sql, keysHandler, rows, params);
+                        System.arraycopy(rows, 0, result, begin, rows.length);
+
+                        // 无法确定生成的主键与实体的对应关系时不能返回缺少主键的实体
+                        if (keys == null || keys.size() != params.length) {
+                            throw new SQLException(String.format(
+                                    "Batch insert returned %s generated keys for %s rows, ids can't be set(sql=%s)",
+                                    keys == null ? 0 : keys.size(), params.length, sql));
+                        }
+
+                        for (int i = begin; i < end; i++) {
+                            idColumn.setPropertyValue(entities.get(i), keys.get(i - begin));
+                        }
+
+                        begin = end;
+                    }
+
+                    return null;
+                }
+            });
+        } finally {
+            evictCaches(entities);
         }
+
+        return result;
     }
 
     @Override
@@ -216,15 +577,30 @@ public class SimpleDao implements Dao {
 
     @Override
     public <T> int[] fastInsert(List<T> entities, final String activatedColumns, final boolean ignoreNull) {
-        return execute(CollectionExUtil.collect(entities, new Function<T, Sql>() {
+        final List<Sql> sqlList = CollectionExUtil.collect(entities, new Function<T, Sql>() {
             @Override
             public Sql invoke(T entity) {
-                return SqlBuilders.insert(entity)
+                return trusted(SqlBuilders.insert(entity)
                         .columns(activatedColumns)
                         .setInsertIgnoreNull(ignoreNull)
-                        .create();
+                        .create());
             }
-        }));
+        });
+
+        try {
+            if (multiRowInsertSize <= 1 || CollectionUtil.isEmpty(sqlList)) {
+                return executeBatch(sqlList);
+            }
+
+            return execute(new ConnectionCallback<int[]>() {
+                @Override
+                public int[] doInConnection(Connection connection) throws SQLException {
+                    return multiRowInsert(connection, sqlList);
+                }
+            });
+        } finally {
+            evictCaches(entities);
+        }
     }
 
     @Override
@@ -238,10 +614,14 @@ public class SimpleDao implements Dao {
             return 0;
         }
 
-        return execute(SqlBuilders.update(entity)
-                .columns(activatedColumns)
-                .setUpdateIgnoreNull(ignoreNull)
-                .create());
+        try {
+            return executeUpdate(trusted(SqlBuilders.update(entity)
+                    .columns(activatedColumns)
+                    .setUpdateIgnoreNull(ignoreNull)
+                    .create()));
+        } finally {
+            evictCaches(entity);
+        }
     }
 
     @Override
@@ -251,15 +631,19 @@ public class SimpleDao implements Dao {
 
     @Override
     public <T> int[] update(List<T> entities, final String activatedColumns, final boolean ignoreNull) {
-        return execute(CollectionExUtil.collect(entities, new Function<T, Sql>() {
-            @Override
-            public Sql invoke(T entity) {
-                return SqlBuilders.update(entity)
-                        .columns(activatedColumns)
-                        .setUpdateIgnoreNull(ignoreNull)
-                        .create();
-            }
-        }));
+        try {
+            return executeBatch(CollectionExUtil.collect(entities, new Function<T, Sql>() {
+                @Override
+                public Sql invoke(T entity) {
+                    return trusted(SqlBuilders.update(entity)
+                            .columns(activatedColumns)
+                            .setUpdateIgnoreNull(ignoreNull)
+                            .create());
+                }
+            }));
+        } finally {
+            evictCaches(entities);
+        }
     }
 
     @Override
@@ -268,7 +652,11 @@ public class SimpleDao implements Dao {
             return 0;
         }
 
-        return execute(SqlBuilders.delete(entity).create());
+        try {
+            return executeUpdate(trusted(SqlBuilders.delete(entity).create()));
+        } finally {
+            evictCaches(entity);
+        }
     }
 
     @Override
@@ -277,25 +665,209 @@ public class SimpleDao implements Dao {
             return 0;
         }
 
-        return execute(SqlBuilders.delete(resultClass).withPK(ids).create());
+        try {
+            return executeUpdate(trusted(SqlBuilders.delete(resultClass).withPK(ids).create()));
+        } finally {
+            if (entityCache != null && entityCache.isCached(resultClass)) {
+                evictCachedEntity(resultClass, EntityCache.keyOf(ids));
+            }
+            invalidateQueryCache(resultClass);
+        }
     }
 
     @Override
     public <T> int[] delete(List<T> entities) {
-        return execute(CollectionExUtil.collect(entities, new Function<T, Sql>() {
-            @Override
-            public Sql invoke(T entity) {
-                return SqlBuilders.delete(entity).create();
-            }
-        }));
+        try {
+            return executeBatch(CollectionExUtil.collect(entities, new Function<T, Sql>() {
+                @Override
+                public Sql invoke(T entity) {
+                    return trusted(SqlBuilders.delete(entity).create());
+                }
+            }));
+        } finally {
+            evictCaches(entities);
+        }
     }
 
     @Override
-    public int execute(final Sql sql) {
+    public int execute(Sql sql) {
         if (sql == null) {
             return 0;
         }
 
+        try {
+            return executeUpdate(sql);
+        } finally {
+            invalidateQueryCache(sql);
+        }
+    }
+
+    @Override
+    public int[] execute(List<Sql> sqlList) {
+        if (CollectionUtil.isEmpty(sqlList)) {
+            return EmptyValue.EMPTY_INT_ARRAY;
+        }
+
+        try {
+            return executeBatch(sqlList);
+        } finally {
+            for (Sql sql : sqlList) {
+                invalidateQueryCache(sql);
+            }
+        }
+    }
+
+    @Override
+    public <T> T execute(ConnectionCallback<T> connectionCallback) {
+        return execute(connectionCallback, false);
+    }
+
+    /**
+     * 执行只读操作,ConnectionHandler支持读写分离时将使用只读连接
+     */
+    protected <T> T executeRead(ConnectionCallback<T> connectionCallback) {
+        return execute(connectionCallback, true);
+    }
+
+    protected <T> T execute(ConnectionCallback<T> connectionCallback, boolean readOnly) {
+        Connection connection = null;
+
+        try {
+            connection = getConnection(readOnly);
+            queryRunner.openStatementCache(connection);
+            try {
+                return connectionCallback.doInConnection(connection);
+            } finally {
+                queryRunner.closeStatementCache(connection);
+            }
+        } catch (SQLException e) {
+            throw ExceptionUtil.toRuntimeException(e);
+        } finally {
+            connectionHandler.releaseConnection(connection, dataSource);
+        }
+    }
+
+    protected Connection getConnection(boolean readOnly) throws SQLException {
+        if (readOnly && connectionHandler instanceof ReadWriteConnectionHandler) {
+            return ((ReadWriteConnectionHandler) connectionHandler).getReadConnection(dataSource);
+        }
+
+        return connectionHandler.getConnection(dataSource);
+    }
+
+    /**
+     * 设置每个连接可缓存的PreparedStatement数量,默认为0,即不缓存
+     * <p>
+     * 缓存仅在同一次execute(ConnectionCallback)内有效,连接释放前将关闭所有已缓存的PreparedStatement。
+     * 不在事务中时,每次Dao调用各自获取并释放连接,语句不会被复用;
+     * 只有在事务中的execute(ConnectionCallback)内执行的Dao调用共享同一连接,才能复用已缓存的语句
+     */
+    public SimpleDao setStatementCacheSize(int statementCacheSize) {
+        queryRunner.setStatementCacheSize(statementCacheSize);
+        return this;
+    }
+
+    /**
+     * 设置是否跳过实体SQL的参数校验
+     * <p>
+     * 开启后,由SqlBuilders根据实体生成的增删改查SQL将不再读取ParameterMetaData校验参数个数,null值统一按VARCHAR类型设置
+     */
+    public SimpleDao setSkipBuiltSqlValidation(boolean skipBuiltSqlValidation) {
+        this.skipBuiltSqlValidation = skipBuiltSqlValidation;
+        return this;
+    }
+
+    /**
+     * 设置fastInsert单条多行INSERT语句的最大行数,默认为0,即使用JDBC批处理逐行插入
+     * <p>
+     * 仅在数据库支持INSERT ... VALUES (...),(...)时生效(MySQL/PostgreSQL/H2/HSQLDB/SQLite/SQL Server),
+     * 每条语句的行数同时受限于数据库允许的最大参数个数
+     */
+    public SimpleDao setMultiRowInsertSize(int multiRowInsertSize) {
+        this.multiRowInsertSize = multiRowInsertSize;
+        return this;
+    }
+
+    /**
+     * 设置默认的Statement配置,如fetchSize、maxRows及queryTimeout,默认为null,即使用驱动默认值
+     * <p>
+     * 调用时传入的StatementConfiguration中未设置的参数将使用该默认配置
+     */
+    public SimpleDao setStatementConfiguration(StatementConfiguration config) {
+        queryRunner.setStatementConfiguration(config);
+        return this;
+    }
+
+    /**
+     * 设置自动计数分页时是否通过COUNT(*) OVER()在分页查询中同时获取总记录数,默认为false
+     * <p>
+     * 仅PostgreSQL、SQL Server、MySQL 8+及MariaDB 10.2+支持,其他数据库仍在同一连接上分别执行计数及分页查询
+     */
+    public SimpleDao setWindowCount(boolean windowCount) {
+        this.windowCount = windowCount;
+        return this;
+    }
+
+    /**
+     * 设置自动计数分页时总记录数的缓存有效期(毫秒),默认为0,即不缓存
+     * <p>
+     * 缓存以SQL及参数为键,有效期内翻页将不再重复计数
+     */
+    public SimpleDao setCountCacheTtl(long countCacheTtlMillis) {
+        countCache.setTtlMillis(countCacheTtlMillis);
+        return this;
+    }
+
+    public CountCache getCountCache() {
+        return countCache;
+    }
+
+    /**
+     * 设置按主键缓存实体的二级缓存,默认为null,即不缓存
+     * <p>
+     * queryWithPkForObject将优先读取缓存,insert/update/delete/deleteWithPK将清除对应实体的缓存,
+     * 事务内的清除将在事务提交后再次执行;通过execute执行的SQL不会清除缓存,需自行调用EntityCache.clear。
+     * <p>
+     * 事务状态由ConnectionHandler判断,未实现TransactionAwareConnectionHandler时不使用缓存
+     */
+    public SimpleDao setEntityCache(EntityCache entityCache) {
+        this.entityCache = entityCache;
+        return this;
+    }
+
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    /**
+     * 设置查询结果缓存,默认为null,即不缓存
+     * <p>
+     * 结果类型已注册时,queryForList及queryForObject将按SQL及参数缓存结果;
+     * 实体的增删改将清除引用该实体表的结果,execute(Sql)将按语句中的表名清除,
+     * 通过execute(ConnectionCallback)执行的写入不会清除缓存,需自行调用QueryCache.invalidate
+     */
+    public SimpleDao setQueryCache(QueryCache queryCache) {
+        this.queryCache = queryCache;
+        return this;
+    }
+
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    public QueryRunner getQueryRunner() {
+        return queryRunner;
+    }
+
+    public ConnectionHandler getConnectionHandler() {
+        return connectionHandler;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    protected int executeUpdate(final Sql sql) {
         return execute(new ConnectionCallback<Integer>() {
             @Override
             public Integer doInConnection(Connection connection) throws SQLException {
@@ -304,8 +876,7 @@ public class SimpleDao implements Dao {
         });
     }
 
-    @Override
-    public int[] execute(final List<Sql> sqlList) {
+    protected int[] executeBatch(final List<Sql> sqlList) {
         if (CollectionUtil.isEmpty(sqlList)) {
             return EmptyValue.EMPTY_INT_ARRAY;
         }
@@ -313,36 +884,611 @@ public class SimpleDao implements Dao {
         return execute(new ConnectionCallback<int[]>() {
             @Override
             public int[] doInConnection(Connection connection) throws SQLException {
-                Object[][] objects = new Object[sqlList.size()][];
-                for (int i = 0; i < sqlList.size(); i++) {
-                    objects[i] = sqlList.get(i).getParams();
-                }
+                return batch(connection, sqlList);
+            }
+        });
+    }
 
-                return queryRunner.batch(connection, sqlList.get(0).getContent(), objects);
+    /**
+     * 查询已注册类型时优先读取查询结果缓存,事务内可能读取到未提交的数据,不使用缓存
+     */
+    protected <T> T queryWithCache(Class<?> resultClass, boolean list, ResultSetHandler<T> handler, Sql sql) {
+        if (queryCache == null || !queryCache.isCached(resultClass) || isInTransaction()) {
+            return query(handler, sql);
+        }
+
+        T value = queryCache.get(resultClass, list, sql);
+        if (value != null) {
+            return value;
+        }
+
+        long version = queryCache.getVersion();
+        value = query(handler, sql);
+        queryCache.put(resultClass, list, sql, value, version);
+        return value;
+    }
+
+    /**
+     * 清除实体写入后失效的实体缓存及查询结果缓存
+     */
+    protected void evictCaches(List<?> entities) {
+        if ((entityCache == null && queryCache == null) || CollectionUtil.isEmpty(entities)) {
+            return;
+        }
+
+        Class<?> lastClass = null;
+        for (Object entity : entities) {
+            if (entity == null) {
+                continue;
+            }
+
+            evictCachedEntity(entity);
+            if (entity.getClass() != lastClass) {
+                lastClass = entity.getClass();
+                invalidateQueryCache(lastClass);
+            }
+        }
+    }
+
+    protected void evictCaches(Object entity) {
+        if (entity == null) {
+            return;
+        }
+
+        evictCachedEntity(entity);
+        invalidateQueryCache(entity.getClass());
+    }
+
+    protected void evictCachedEntity(Object entity) {
+        if (entityCache == null || !entityCache.isCached(entity.getClass())) {
+            return;
+        }
+
+        evictCachedEntity(entity.getClass(), entityCache.entityKey(entity));
+    }
+
+    protected void evictCachedEntity(final Class<?> entityClass, final Object key) {
+        evictNowAndAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                entityCache.evict(entityClass, key);
             }
         });
     }
 
-    @Override
-    public <T> T execute(ConnectionCallback<T> connectionCallback) {
-        Connection connection = null;
+    protected void invalidateQueryCache(Class<?> entityClass) {
+        if (queryCache == null) {
+            return;
+        }
+
+        Entity<?> entity = EntitySqlBuilder.DEFAULT_ENTITY_MANAGER.createIfNotExist(entityClass);
+        if (entity == null) {
+            return;
+        }
+
+        final String table = entity.getTable();
+        evictNowAndAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                queryCache.invalidate(table);
+            }
+        });
+    }
+
+    protected void invalidateQueryCache(final Sql sql) {
+        if (queryCache == null || sql == null) {
+            return;
+        }
+
+        evictNowAndAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                queryCache.invalidate(sql);
+            }
+        });
+    }
+
+    /**
+     * 立即清除缓存,处于事务中时提交后再次清除,避免提交前其他线程重新缓存旧数据
+     */
+    protected void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+
+        if (connectionHandler instanceof TransactionAwareConnectionHandler) {
+            ((TransactionAwareConnectionHandler) connectionHandler).afterCommit(eviction);
+        }
+    }
+
+    /**
+     * 判断当前线程是否处于事务中,ConnectionHandler无法判断事务状态时视为处于事务中,即不使用缓存
+     */
+    public boolean isInTransaction() {
+        return !(connectionHandler instanceof TransactionAwareConnectionHandler)
+                || ((TransactionAwareConnectionHandler) connectionHandler).isInTransaction();
+    }
+
+    /**
+     * 标记由SqlBuilders生成的SQL,开启skipBuiltSqlValidation时将跳过参数校验
+     */
+    protected Sql trusted(Sql sql) {
+        if (skipBuiltSqlValidation && sql != null) {
+            queryRunner.skipParameterValidation(sql.getContent());
+        }
+
+        return sql;
+    }
+
+    /**
+     * 获取数据库单条语句允许的最大参数个数,未知时返回0
+     */
+    protected int getMaxBindParameters(Connection connection) throws SQLException {
+        int maxParams = maxBindParameters;
+        if (maxParams < 0) {
+            maxParams = MultiRowInsert.maxBindParameters(connection);
+            maxBindParameters = maxParams;
+        }
+
+        return maxParams;
+    }
+
+    /**
+     * 按数据库参数个数限制将主键分批,在同一连接上逐批执行IN查询
+     */
+    protected <T> List<T> queryWithPkInChunks(Connection connection,
+                                              Class<T> resultClass,
+                                              List<Entity.Column> idColumns,
+                                              List<Object[]> ids) throws SQLException {
+        int chunkSize = MAX_PK_IN_SIZE;
+        int maxParams = getMaxBindParameters(connection);
+        if (maxParams > 0) {
+            chunkSize = Math.min(chunkSize, maxParams / idColumns.size());
+        }
+        chunkSize = Math.max(chunkSize, 1);
+
+        String selectSql = SqlBuilders.select(resultClass).create().getContent();
+        ResultSetHandler<List<T>> handler = resultSetHandlerSelector.selectForList(resultClass);
+        List<T> result = new ArrayList<T>(ids.size());
+
+        for (int begin = 0; begin < ids.size(); begin += chunkSize) {
+            Sql sql = createPkInSql(selectSql, idColumns, ids.subList(begin, Math.min(begin + chunkSize, ids.size())));
+            result.addAll(queryRunner.query(connection, sql.getContent(), handler, sql.getParams()));
+        }
+
+        return result;
+    }
+
+    /**
+     * 在实体查询语句后追加主键条件,单主键生成id IN (?, ...),复合主键生成(id1 = ? AND id2 = ?) OR ...
+     */
+    protected Sql createPkInSql(String selectSql, List<Entity.Column> idColumns, List<Object[]> ids) {
+        List<Object> params = new ArrayList<Object>(ids.size() * idColumns.size());
+        StringBuilder sb = new StringBuilder();
+
+        int where = DbUtil.indexOfKeyword(selectSql, "WHERE");
+        if (where < 0) {
+            sb.append(selectSql).append(" WHERE ");
+        } else {
+            // 原条件可能包含OR,需加括号后再追加主键条件
+            int conditionBegin = where + "WHERE".length();
+            sb.append(selectSql, 0, conditionBegin)
+                    .append(" (")
+                    .append(selectSql, conditionBegin, selectSql.length())
+                    .append(") AND ");
+        }
+
+        sb.append('(');
+
+        if (idColumns.size() == 1) {
+            sb.append(idColumns.get(0).getName()).append(" IN (");
+            for (int i = 0; i < ids.size(); i++) {
+                sb.append(i == 0 ? "?" : ", ?");
+                params.add(ids.get(i)[0]);
+            }
+            sb.append(')');
+        } else {
+            for (int i = 0; i < ids.size(); i++) {
+                if (i > 0) {
+                    sb.append(" OR ");
+                }
+
+                sb.append('(');
+                for (int j = 0; j < idColumns.size(); j++) {
+                    if (j > 0) {
+                        sb.append(" AND ");
+                    }
+                    sb.append(idColumns.get(j).getName()).append(" = ?");
+                    params.add(ids.get(i)[j]);
+                }
+                sb.append(')');
+            }
+        }
+        sb.append(')');
+
+        return new Sql().setContent(sb.toString()).setParams(params.toArray());
+    }
+
+    /**
+     * 将单个主键或复合主键的数组、集合转换为主键值数组
+     */
+    protected Object[] pkValues(Object id, int columnCount) {
+        Object[] values;
+        if (columnCount == 1) {
+            values = new Object[]{id};
+        } else if (id instanceof Object[]) {
+            values = (Object[]) id;
+        } else if (id instanceof Collection) {
+            values = ((Collection<?>) id).toArray();
+        } else {
+            values = new Object[]{id};
+        }
+
+        Assert.isTrue(values.length == columnCount,
+                "Expected " + columnCount + " primary key values but got " + values.length);
+        return values;
+    }
+
+    /**
+     * 将相邻且语句相同的单行INSERT合并为多行INSERT执行
+     * <p>
+     * 由于多行INSERT仅返回总影响行数,当影响行数与行数一致时每行结果为1,否则为Statement.SUCCESS_NO_INFO
+     */
+    protected int[] multiRowInsert(Connection connection, List<Sql> sqlList) throws SQLException {
+        int maxParams = getMaxBindParameters(connection);
+
+        MultiRowInsert firstInsert = MultiRowInsert.of(sqlList.get(0).getContent());
+        if (maxParams == 0 || firstInsert == null) {
+            return batch(connection, sqlList);
+        }
+
+        int[] result = new int[sqlList.size()];
+        int begin = 0;
+        while (begin < sqlList.size()) {
+            Sql first = sqlList.get(begin);
+            MultiRowInsert insert = MultiRowInsert.of(first.getContent());
+            int end = begin + 1;
+
+            if (insert != null && first.getParams() != null &&
+                    first.getParams().length == insert.getParamsPerRow()) {
+                int maxRows = insert.rowsPerStatement(multiRowInsertSize, maxParams);
+                while (end < sqlList.size() &&
+                        end - begin < maxRows &&
+                        first.getContent().equals(sqlList.get(end).getContent())) {
+                    end++;
+                }
+            }
+
+            int rowCount = end - begin;
+            int updated;
+            if (rowCount == 1) {
+                updated = queryRunner.update(connection, first.getContent(), first.getParams());
+            } else {
+                Object[] params = new Object[insert.getParamsPerRow() * rowCount];
+                for (int i = begin; i < end; i++) {
+                    System.arraycopy(sqlList.get(i).getParams(), 0,
+                            params, (i - begin) * insert.getParamsPerRow(), insert.getParamsPerRow());
+                }
+
+                String sql = trusted(insert.sql(rowCount));
+                updated = queryRunner.update(connection, sql, params);
+            }
+
+            Arrays.fill(result, begin, end, updated == rowCount ? 1 : Statement.SUCCESS_NO_INFO);
+            begin = end;
+        }
+
+        return result;
+    }
+
+    /**
+     * 为游标读取补充默认的fetchSize,未设置的其他参数仍使用DAO默认配置
+     * <p>
+     * MySQL需设置fetchSize为Integer.MIN_VALUE才会逐行读取,此时同一连接无法执行其他语句,因此仅在非事务中启用
+     */
+    protected StatementConfiguration withStreamingDefaults(Connection connection,
+                                                           StatementConfiguration config) throws SQLException {
+        int fetchSize = DEFAULT_STREAM_FETCH_SIZE;
+
+        String productName = DbUtil.getDatabaseProductName(connection);
+        if ((productName.contains("mysql") || productName.contains("mariadb")) && connection.getAutoCommit()) {
+            fetchSize = Integer.MIN_VALUE;
+        }
+
+        StatementConfiguration streaming = new StatementConfiguration.Builder().fetchSize(fetchSize).build();
+        return config == null ? streaming : config.withDefaults(streaming);
+    }
+
+    /**
+     * PostgreSQL仅在非自动提交时才使用游标,游标读取期间关闭连接的自动提交
+     *
+     * @return 是否关闭了连接的自动提交
+     */
+    protected boolean beginStreaming(Connection connection) throws SQLException {
+        if (DbUtil.getDatabaseProductName(connection).contains("postgresql") && connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * 恢复beginStreaming关闭的自动提交
+     */
+    protected void endStreaming(Connection connection, boolean autoCommitChanged) {
+        if (!autoCommitChanged) {
+            return;
+        }
 
         try {
-            connection = connectionHandler.getConnection(dataSource);
-            return connectionCallback.doInConnection(connection);
+            connection.commit();
+            connection.setAutoCommit(true);
         } catch (SQLException e) {
-            throw ExceptionUtil.toRuntimeException(e);
+            log.warn(e, "Restore auto commit failed");
+        }
+    }
+
+    protected void closeStream(Connection connection,
+                               PreparedStatement stmt,
+                               ResultSet rs,
+                               boolean autoCommitChanged) {
+        try {
+            DbUtils.closeQuietly(rs);
+            DbUtils.closeQuietly(stmt);
+            endStreaming(connection, autoCommitChanged);
         } finally {
             connectionHandler.releaseConnection(connection, dataSource);
         }
     }
 
-    public ConnectionHandler getConnectionHandler() {
-        return connectionHandler;
+    protected int[] batch(Connection connection, List<Sql> sqlList) throws SQLException {
+        Object[][] objects = new Object[sqlList.size()][];
+        for (int i = 0; i < sqlList.size(); i++) {
+            objects[i] = sqlList.get(i).getParams();
+        }
+
+        return queryRunner.batch(connection, sqlList.get(0).getContent(), objects);
     }
 
-    public DataSource getDataSource() {
-        return dataSource;
+    protected String trusted(String sql) {
+        if (skipBuiltSqlValidation) {
+            queryRunner.skipParameterValidation(sql);
+        }
+
+        return sql;
+    }
+
+    /**
+     * 在同一次查询中通过COUNT(*) OVER()获取分页数据及总记录数
+     * <p>
+     * 若数据库不支持或SQL无法改写,则在同一连接上依次执行计数及分页查询
+     */
+    protected <T> List<T> queryForListWithWindowCount(final ResultSetHandler<List<T>> handler,
+                                                      final Sql sql,
+                                                      final Pager pager,
+                                                      final StatementConfiguration config) {
+        return executeRead(new ConnectionCallback<List<T>>() {
+            @Override
+            public List<T> doInConnection(Connection connection) throws SQLException {
+                String windowSql = isWindowCountSupported(connection) ?
+                        WindowCount.createSelect(sql.getContent()) : null;
+
+                if (windowSql != null) {
+                    final WindowCount counter = new WindowCount();
+                    Sql pagerSql = createPagerSql(new Sql(windowSql, sql.getParams()), pager);
+
+                    List<T> result = queryRunner.query(connection, config, pagerSql.getContent(),
+                            new ResultSetHandler<List<T>>() {
+                                @Override
+                                public List<T> handle(ResultSet rs) throws SQLException {
+                                    return handler.handle(counter.wrap(rs));
+                                }
+                            }, pagerSql.getParams());
+
+                    // 当前页为空时无法获取总记录数,仅在非首页时重新计数
+                    if (counter.getRecordCount() >= 0 || pager.getOffset() == 0) {
+                        int recordCount = Math.max(counter.getRecordCount(), 0);
+                        countCache.put(sql, recordCount);
+                        pager.setRecordCount(recordCount);
+                        return result;
+                    }
+                }
+
+                Integer recordCount = queryRunner.query(connection,
+                        dialect.createCountSelect(sql.getContent()),
+                        resultSetHandlerSelector.selectForObject(Integer.class),
+                        sql.getParams());
+                countCache.put(sql, recordCount);
+                pager.setRecordCount(recordCount);
+
+                Sql pagerSql = createPagerSql(sql, pager);
+                return queryRunner.query(connection, config, pagerSql.getContent(), handler, pagerSql.getParams());
+            }
+        });
+    }
+
+    protected boolean isWindowCountSupported(Connection connection) throws SQLException {
+        Boolean supported = windowCountSupported;
+        if (supported == null) {
+            supported = WindowCount.isSupported(connection);
+            windowCountSupported = supported;
+        }
+
+        return supported;
+    }
+
+    /**
+     * 获取keyset分页的排序列,未指定时使用实体主键
+     */
+    protected List<Entity.Column> keysetColumns(Class<?> entityClass, KeysetPager pager) {
+        Assert.isTrue(pager.getPageSize() > 0, "Invalid page size:" + pager.getPageSize());
+
+        Entity<?> entity = EntitySqlBuilder.DEFAULT_ENTITY_MANAGER.createIfNotExist(entityClass);
+        Assert.notNull(entity, "Not entity class:" + entityClass);
+
+        List<Entity.Column> columns;
+        if (ValueUtil.isEmpty(pager.getColumns())) {
+            columns = entity.getIdColumns();
+        } else {
+            columns = new ArrayList<Entity.Column>(pager.getColumns().length);
+            for (String columnName : pager.getColumns()) {
+                Entity.Column column = entity.getColumnWithColumnName(columnName);
+                Assert.notNull(column, String.format("Can't find column(table=%s, column=%s)",
+                        entity.getTable(), columnName));
+                columns.add(column);
+            }
+        }
+
+        Assert.notEmpty(columns, "No keyset columns:" + entityClass);
+        Assert.isTrue(pager.getLastKeys() == null || pager.getLastKeys().length == columns.size(),
+                "Last keys do not match keyset columns");
+        return columns;
+    }
+
+    /**
+     * 生成keyset分页SQL
+     * <p>
+     * 条件及排序直接追加到原SQL,即sql WHERE (原条件) AND (c1, c2) > (?, ?) ORDER BY c1, c2,
+     * 以便数据库使用索引范围扫描;数据库不支持行值比较时使用c1 >= ? AND (c1 > ? OR (c1 = ? AND c2 > ?))。
+     * 原SQL最外层包含ORDER BY、GROUP BY、UNION等无法直接追加条件的子句时,才以子查询方式包装
+     */
+    protected Sql createKeysetSql(Sql sql, List<Entity.Column> columns, KeysetPager pager) {
+        List<Object> params = new ArrayList<Object>();
+        if (sql.getParams() != null) {
+            params.addAll(Arrays.asList(sql.getParams()));
+        }
+
+        String content = sql.getContent();
+        StringBuilder sb = new StringBuilder();
+        boolean wrap = !canAppendKeysetCondition(content);
+        if (wrap) {
+            sb.append("SELECT * FROM (").append(content).append(") keyset_t");
+        }
+
+        Object[] lastKeys = pager.getLastKeys();
+        if (lastKeys != null) {
+            int where = wrap ? -1 : DbUtil.indexOfKeyword(content, "WHERE");
+            if (where < 0) {
+                if (!wrap) {
+                    sb.append(content);
+                }
+                sb.append(" WHERE ");
+            } else {
+                // 原条件可能包含OR,需加括号后再追加keyset条件
+                int conditionBegin = where + "WHERE".length();
+                sb.append(content, 0, conditionBegin)
+                        .append(" (")
+                        .append(content, conditionBegin, content.length())
+                        .append(") AND ");
+            }
+
+            appendKeysetCondition(sb, params, columns, lastKeys);
+        } else if (!wrap) {
+            sb.append(content);
+        }
+
+        sb.append(" ORDER BY ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(columns.get(i).getName());
+        }
+
+        return new Sql()
+                .setContent(dialect.createPageSelect(sb.toString(), pager.getPageSize(), 0))
+                .setParams(params.toArray());
+    }
+
+    private boolean canAppendKeysetCondition(String sql) {
+        for (String keyword : KEYSET_INCOMPATIBLE_KEYWORDS) {
+            if (DbUtil.indexOfKeyword(sql, keyword) >= 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void appendKeysetCondition(StringBuilder sb,
+                                       List<Object> params,
+                                       List<Entity.Column> columns,
+                                       Object[] lastKeys) {
+        String first = columns.get(0).getName();
+
+        if (columns.size() == 1) {
+            sb.append(first).append(" > ?");
+            params.add(lastKeys[0]);
+            return;
+        }
+
+        if (isRowValueComparisonSupported()) {
+            StringBuilder values = new StringBuilder();
+            sb.append('(');
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                    values.append(", ");
+                }
+                sb.append(columns.get(i).getName());
+                values.append('?');
+                params.add(lastKeys[i]);
+            }
+            sb.append(") > (").append(values).append(')');
+            return;
+        }
+
+        // 首列的范围条件便于使用索引,OR展开部分保证结果正确
+        sb.append(first).append(" >= ? AND (");
+        params.add(lastKeys[0]);
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(" OR ");
+            }
+
+            sb.append('(');
+            for (int j = 0; j < i; j++) {
+                sb.append(columns.get(j).getName()).append(" = ? AND ");
+                params.add(lastKeys[j]);
+            }
+            sb.append(columns.get(i).getName()).append(" > ?)");
+            params.add(lastKeys[i]);
+        }
+        sb.append(')');
+    }
+
+    /**
+     * 数据库是否支持(c1, c2) > (?, ?)形式的行值比较
+     */
+    protected boolean isRowValueComparisonSupported() {
+        Boolean supported = rowValueComparisonSupported;
+        if (supported == null) {
+            String productName = executeRead(new ConnectionCallback<String>() {
+                @Override
+                public String doInConnection(Connection connection) throws SQLException {
+                    return DbUtil.getDatabaseProductName(connection);
+                }
+            });
+
+            supported = false;
+            for (String name : ROW_VALUE_COMPARISON_DATABASES) {
+                if (productName.contains(name)) {
+                    supported = true;
+                    break;
+                }
+            }
+            rowValueComparisonSupported = supported;
+        }
+
+        return supported;
+    }
+
+    protected Object[] keysetValues(List<Entity.Column> columns, Object entity) {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            values[i] = DbUtil.getColumnValue(columns.get(i), entity);
+        }
+
+        return values;
     }
 
     protected Sql createPagerSql(Sql sql, Pager pager) {
@@ -1,27 +1,51 @@
 package org.team4u.dao.core;
 
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+
 import javax.sql.DataSource;
 import java.io.Closeable;
 import java.io.PrintWriter;
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 public class SimpleDataSource implements DataSource, Closeable {
 
+    private static final Log log = LogFactory.get();
+
     protected String username;
     protected String password;
     protected String driverClassName;
     protected String url;
 
-    protected List<Connection> connections = new ArrayList<Connection>();
+    /**
+     * 未关闭的连接,可在任意线程中并发增删
+     */
+    protected Set<ConnectionInfo> connections =
+            Collections.newSetFromMap(new ConcurrentHashMap<ConnectionInfo, Boolean>());
+
+    protected long reclaimPeriodMillis = 60 * 1000;
+    protected long abandonedTimeoutMillis;
+
+    private volatile ScheduledExecutorService reclaimer;
 
     public static DataSource createDataSource(Properties props) {
         SimpleDataSource sds = new SimpleDataSource();
@@ -32,32 +56,96 @@ public class SimpleDataSource implements DataSource, Closeable {
     }
 
     public Connection getConnection() throws SQLException {
-        final Connection connection;
-        if (username != null) {
-            connection = DriverManager.getConnection(url, username, password);
-        } else {
-            connection = DriverManager.getConnection(url);
-        }
+        final Connection connection = createConnection();
+        final ConnectionInfo info = new ConnectionInfo(connection);
 
-        connections.add(connection);
+        connections.add(info);
+        startReclaimer();
 
         return (Connection) Proxy.newProxyInstance(connection.getClass().getClassLoader(), new Class[]{Connection.class}, new InvocationHandler() {
             public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                info.lastUsedAt = System.currentTimeMillis();
                 if (method.getName().equals("close") && method.getParameterTypes().length == 0)
-                    connections.remove(connection);
-                return method.invoke(connection, args);
+                    connections.remove(info);
+                Object result = method.invoke(connection, args);
+                if (result instanceof Statement) {
+                    return trackStatement((Statement) result, method.getReturnType(), info);
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * 包装连接创建的语句,执行语句时同样视为使用连接,执行期间的连接不会被视为遗弃
+     */
+    private Object trackStatement(final Statement statement, Class<?> type, final ConnectionInfo info) {
+        return Proxy.newProxyInstance(statement.getClass().getClassLoader(), new Class[]{type}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                boolean execute = method.getName().startsWith("execute");
+                if (execute) {
+                    info.executing.incrementAndGet();
+                }
+
+                info.lastUsedAt = System.currentTimeMillis();
+                try {
+                    return method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                } finally {
+                    if (execute) {
+                        info.lastUsedAt = System.currentTimeMillis();
+                        info.executing.decrementAndGet();
+                    }
+                }
             }
         });
     }
 
+    /**
+     * 创建新的物理连接
+     */
+    protected Connection createConnection() throws SQLException {
+        if (username != null) {
+            return DriverManager.getConnection(url, username, password);
+        }
+
+        return DriverManager.getConnection(url);
+    }
+
+    /**
+     * 清除已关闭的连接,并关闭超过abandonedTimeoutMillis未使用的连接
+     */
+    protected void reclaim() {
+        long now = System.currentTimeMillis();
+
+        for (ConnectionInfo info : connections) {
+            try {
+                if (info.connection.isClosed()) {
+                    connections.remove(info);
+                } else if (abandonedTimeoutMillis > 0 && info.executing.get() == 0 &&
+                        now - info.lastUsedAt > abandonedTimeoutMillis) {
+                    log.warn("Closing abandoned connection(age={}ms, idle={}ms)", info.getAge(), info.getIdleMillis());
+                    connections.remove(info);
+                    info.connection.close();
+                }
+            } catch (SQLException e) {
+                connections.remove(info);
+            }
+        }
+    }
+
     @Override
-    public synchronized void close() {
-        List<Connection> connectionsToClose = new ArrayList<Connection>(connections);
-        connections.clear();
+    public void close() {
+        if (reclaimer != null) {
+            reclaimer.shutdownNow();
+        }
+
+        for (ConnectionInfo info : connections) {
+            connections.remove(info);
 
-        for (Connection connection : connectionsToClose) {
             try {
-                connection.close();
+                info.connection.close();
             } catch (SQLException e) {
             }
         }
@@ -80,6 +168,23 @@ public class SimpleDataSource implements DataSource, Closeable {
         this.url = url;
     }
 
+    /**
+     * 设置后台清除已关闭连接的执行间隔(毫秒),默认为60秒,需在获取连接前设置
+     */
+    public void setReclaimPeriodMillis(long reclaimPeriodMillis) {
+        this.reclaimPeriodMillis = reclaimPeriodMillis;
+    }
+
+    /**
+     * 设置连接超过多长时间(毫秒)未使用时视为遗弃并关闭,默认为0,即不关闭
+     * <p>
+     * 调用连接或其创建的语句的方法均视为使用,正在执行语句的连接不会被关闭;
+     * 但通过ResultSet逐行读取结果不会更新使用时间,流式读取大结果集时需设置足够长的时间
+     */
+    public void setAbandonedTimeoutMillis(long abandonedTimeoutMillis) {
+        this.abandonedTimeoutMillis = abandonedTimeoutMillis;
+    }
+
     public PrintWriter getLogWriter() throws SQLException {
         throw new UnsupportedOperationException();
     }
@@ -116,4 +221,85 @@ public class SimpleDataSource implements DataSource, Closeable {
     public long getActiveCount() {
         return connections.size();
     }
+
+    /**
+     * 获取所有未关闭连接的创建及最后使用时间
+     */
+    public List<ConnectionInfo> getConnectionInfos() {
+        return new ArrayList<ConnectionInfo>(connections);
+    }
+
+    private void startReclaimer() {
+        if (reclaimer != null || reclaimPeriodMillis <= 0) {
+            return;
+        }
+
+        synchronized (this) {
+            if (reclaimer != null) {
+                return;
+            }
+
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "simple-dao-connection-reclaimer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+            executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        reclaim();
+                    } catch (Exception e) {
+                        log.warn(e, "Connection reclaiming failed");
+                    }
+                }
+            }, reclaimPeriodMillis, reclaimPeriodMillis, TimeUnit.MILLISECONDS);
+
+            reclaimer = executor;
+        }
+    }
+
+    /**
+     * 连接的创建及最后使用时间
+     */
+    public static class ConnectionInfo {
+
+        private final Connection connection;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastUsedAt = createdAt;
+        /**
+         * 正在执行的语句数
+         */
+        private final AtomicInteger executing = new AtomicInteger();
+
+        ConnectionInfo(Connection connection) {
+            this.connection = connection;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public long getLastUsedAt() {
+            return lastUsedAt;
+        }
+
+        /**
+         * @return 连接创建至今的时间(毫秒)
+         */
+        public long getAge() {
+            return System.currentTimeMillis() - createdAt;
+        }
+
+        /**
+         * @return 连接最后使用至今的时间(毫秒)
+         */
+        public long getIdleMillis() {
+            return System.currentTimeMillis() - lastUsedAt;
+        }
+    }
 }
\ No newline at end of file
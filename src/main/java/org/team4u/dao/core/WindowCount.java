@@ -0,0 +1,186 @@
+package org.team4u.dao.core;
+
+import org.apache.commons.dbutils.ProxyFactory;
+import org.team4u.dao.util.DbUtil;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * 通过COUNT(*) OVER()在分页查询中同时获取总记录数
+ * <p>
+ * 总记录数作为附加列加入查询结果,读取结果时该列对ResultSetHandler不可见
+ *
+ * @author Jay Wu
+ */
+public class WindowCount {
+
+    public static final String COUNT_COLUMN = "dao_total_count_";
+
+    private static final String[] SET_OPERATORS = {"UNION", "INTERSECT", "EXCEPT", "MINUS"};
+
+    private int recordCount = -1;
+
+    /**
+     * 判断数据库是否支持COUNT(*) OVER()
+     */
+    public static boolean isSupported(Connection connection) throws SQLException {
+        String productName = DbUtil.getDatabaseProductName(connection);
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        if (productName.contains("postgresql") || productName.contains("microsoft sql server")) {
+            return true;
+        }
+
+        if (productName.contains("mysql")) {
+            // MariaDB驱动连接时产品名称同样为MySQL,版本号形如5.5.5-10.3.8-MariaDB
+            String version = metaData.getDatabaseProductVersion();
+            if (version != null && version.toLowerCase(Locale.ENGLISH).contains("mariadb")) {
+                return isMariaDbSupported(version);
+            }
+
+            return metaData.getDatabaseMajorVersion() >= 8;
+        }
+
+        if (productName.contains("mariadb")) {
+            return metaData.getDatabaseMajorVersion() > 10 ||
+                    (metaData.getDatabaseMajorVersion() == 10 && metaData.getDatabaseMinorVersion() >= 2);
+        }
+
+        return false;
+    }
+
+    private static boolean isMariaDbSupported(String version) {
+        String[] parts = version.split("-");
+        String mariaDbVersion = parts.length > 2 ? parts[1] : parts[0];
+        String[] numbers = mariaDbVersion.split("\\.");
+
+        try {
+            int major = Integer.parseInt(numbers[0]);
+            int minor = numbers.length > 1 ? Integer.parseInt(numbers[1]) : 0;
+            return major > 10 || (major == 10 && minor >= 2);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 在查询字段末尾附加COUNT(*) OVER()
+     *
+     * @return 附加后的SQL,若无法安全附加(如DISTINCT、UNION或非SELECT语句)则返回null
+     */
+    public static String createSelect(String sql) {
+        String trimSql = sql.trim();
+
+        if (DbUtil.indexOfKeyword(trimSql, "SELECT") != 0 ||
+                DbUtil.indexOfKeyword(trimSql, "SELECT DISTINCT") == 0) {
+            return null;
+        }
+
+        // 存在集合运算,COUNT(*) OVER()仅作用于单个查询
+        for (String keyword : SET_OPERATORS) {
+            if (DbUtil.indexOfKeyword(trimSql, keyword) >= 0) {
+                return null;
+            }
+        }
+
+        int fromIndex = DbUtil.indexOfKeyword(trimSql, "FROM");
+        if (fromIndex < 0) {
+            return null;
+        }
+
+        return trimSql.substring(0, fromIndex).trim() +
+                ", COUNT(*) OVER() AS " + COUNT_COLUMN + " " +
+                trimSql.substring(fromIndex);
+    }
+
+    /**
+     * 包装ResultSet,读取第一行时记录总记录数,并隐藏总记录数列
+     * <p>
+     * 总记录数列按别名查找,分页方言在其后追加的列(如ROW_NUMBER)的下标将前移一位
+     */
+    public ResultSet wrap(final ResultSet rs) throws SQLException {
+        final int countIndex = rs.findColumn(COUNT_COLUMN);
+
+        return ProxyFactory.instance().createResultSet(new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+
+                if (name.equals("getMetaData")) {
+                    return hideCountColumn(rs.getMetaData(), countIndex);
+                }
+
+                if (name.equals("findColumn")) {
+                    int index = (Integer) invokeTarget(rs, method, args);
+                    return index > countIndex ? index - 1 : index;
+                }
+
+                if (name.startsWith("get") || name.startsWith("update")) {
+                    shiftColumnIndex(method, args, countIndex);
+                }
+
+                Object result = invokeTarget(rs, method, args);
+
+                if (name.equals("next") && Boolean.TRUE.equals(result) && recordCount < 0) {
+                    recordCount = rs.getInt(countIndex);
+                }
+
+                return result;
+            }
+        });
+    }
+
+    private ResultSetMetaData hideCountColumn(final ResultSetMetaData rsmd, final int countIndex) {
+        return ProxyFactory.instance().createResultSetMetaData(new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("getColumnCount")) {
+                    return rsmd.getColumnCount() - 1;
+                }
+
+                shiftColumnIndex(method, args, countIndex);
+                return invokeTarget(rsmd, method, args);
+            }
+        });
+    }
+
+    /**
+     * 将调用方看到的列下标转换为实际下标,即跳过总记录数列
+     */
+    private static void shiftColumnIndex(Method method, Object[] args, int countIndex) {
+        Class<?>[] types = method.getParameterTypes();
+        if (types.length == 0 || types[0] != int.class) {
+            return;
+        }
+
+        int column = (Integer) args[0];
+        if (column >= countIndex) {
+            args[0] = column + 1;
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * 获取总记录数
+     *
+     * @return 总记录数,若结果为空则返回-1
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+}
\ No newline at end of file
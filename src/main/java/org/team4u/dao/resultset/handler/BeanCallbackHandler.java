@@ -2,6 +2,7 @@ package org.team4u.dao.resultset.handler;
 
 import org.apache.commons.dbutils.ResultSetHandler;
 import org.apache.commons.dbutils.RowProcessor;
+import org.team4u.dao.resultset.processor.CompiledRowProcessor;
 import org.team4u.kit.core.action.Callback;
 
 import java.sql.ResultSet;
@@ -32,8 +33,20 @@ public class BeanCallbackHandler<T> implements ResultSetHandler<T> {
 
     @Override
     public T handle(ResultSet rs) throws SQLException {
+        if (!(convert instanceof CompiledRowProcessor)) {
+            while (rs.next()) {
+                callback.invoke(convert.toBean(rs, this.type));
+            }
+            return null;
+        }
+
+        CompiledRowProcessor.Prepared<T> prepared = null;
         while (rs.next()) {
-            callback.invoke(convert.toBean(rs, this.type));
+            // 字段对应关系只需确定一次
+            if (prepared == null) {
+                prepared = ((CompiledRowProcessor) convert).prepare(rs.getMetaData(), this.type);
+            }
+            callback.invoke(prepared.toBean(rs));
         }
 
         return null;
@@ -0,0 +1,51 @@
+package org.team4u.dao.resultset.handler;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.apache.commons.dbutils.RowProcessor;
+import org.team4u.dao.resultset.processor.CompiledRowProcessor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 将ResultSet当前行转换为对象,不移动游标
+ *
+ * @author Jay Wu
+ */
+public class BeanRowHandler<T> implements ResultSetHandler<T> {
+    /**
+     * The Class of beans produced by this handler.
+     */
+    protected final Class<T> type;
+
+    /**
+     * The RowProcessor implementation to use when converting rows
+     * into beans.
+     */
+    protected final RowProcessor convert;
+
+    /**
+     * 最近处理的ResultSet及其转换器,同一ResultSet逐行转换时无需重复确定字段对应关系
+     */
+    private ResultSet lastResultSet;
+    private CompiledRowProcessor.Prepared<T> prepared;
+
+    public BeanRowHandler(Class<T> type, RowProcessor convert) {
+        this.type = type;
+        this.convert = convert;
+    }
+
+    @Override
+    public T handle(ResultSet rs) throws SQLException {
+        if (!(convert instanceof CompiledRowProcessor)) {
+            return convert.toBean(rs, this.type);
+        }
+
+        if (rs != lastResultSet) {
+            prepared = ((CompiledRowProcessor) convert).prepare(rs.getMetaData(), this.type);
+            lastResultSet = rs;
+        }
+
+        return prepared.toBean(rs);
+    }
+}
\ No newline at end of file
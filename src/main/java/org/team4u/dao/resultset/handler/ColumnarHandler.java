@@ -0,0 +1,103 @@
+package org.team4u.dao.resultset.handler;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.team4u.dao.util.DbUtil;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * 将ResultSet按列转换为ColumnarResult,列的存储类型由ResultSetMetaData决定
+ *
+ * @author Jay Wu
+ */
+public class ColumnarHandler implements ResultSetHandler<ColumnarResult> {
+
+    /**
+     * long可无损保存的最大十进制位数
+     */
+    private static final int MAX_LONG_PRECISION = 18;
+
+    protected boolean camelCase;
+
+    public ColumnarHandler() {
+        this(false);
+    }
+
+    public ColumnarHandler(boolean camelCase) {
+        this.camelCase = camelCase;
+    }
+
+    @Override
+    public ColumnarResult handle(ResultSet rs) throws SQLException {
+        ResultSetMetaData rsmd = rs.getMetaData();
+        String[] columnKeys = DbUtil.getColumnKeys(rsmd, camelCase);
+
+        ColumnarResult.Column[] columns = new ColumnarResult.Column[columnKeys.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = createColumn(columnKeys[i], rsmd, i + 1);
+        }
+
+        int rowCount = 0;
+        while (rs.next()) {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].append(rs, i + 1);
+            }
+            rowCount++;
+        }
+
+        for (ColumnarResult.Column column : columns) {
+            column.trim();
+        }
+
+        return new ColumnarResult(columns, rowCount);
+    }
+
+    protected ColumnarResult.Column createColumn(String name, ResultSetMetaData rsmd, int column) throws SQLException {
+        switch (rsmd.getColumnType(column)) {
+            case Types.BIGINT:
+                // 无符号BIGINT超出long的范围
+                if (!rsmd.isSigned(column)) {
+                    return new ColumnarResult.ObjectColumn(name);
+                }
+                return new ColumnarResult.LongColumn(name);
+
+            case Types.INTEGER:
+                // 无符号INTEGER超出int的范围
+                if (!rsmd.isSigned(column)) {
+                    return new ColumnarResult.LongColumn(name);
+                }
+                return new ColumnarResult.IntColumn(name);
+
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return new ColumnarResult.IntColumn(name);
+
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return new ColumnarResult.DoubleColumn(name);
+
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                int precision = rsmd.getPrecision(column);
+                if (rsmd.getScale(column) == 0 && precision > 0 && precision <= MAX_LONG_PRECISION) {
+                    return new ColumnarResult.LongColumn(name);
+                }
+                return new ColumnarResult.ObjectColumn(name);
+
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new ColumnarResult.StringColumn(name);
+
+            default:
+                return new ColumnarResult.ObjectColumn(name);
+        }
+    }
+}
\ No newline at end of file
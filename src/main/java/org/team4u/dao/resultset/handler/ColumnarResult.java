@@ -0,0 +1,475 @@
+package org.team4u.dao.resultset.handler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按列存储的查询结果,数值列使用基本类型数组,低基数的字符串列使用字典编码
+ * <p>
+ * 适用于大结果集的统计分析,避免逐行创建Map及装箱
+ *
+ * @author Jay Wu
+ */
+public class ColumnarResult {
+
+    private final Column[] columns;
+
+    private final int rowCount;
+
+    private final Map<String, Integer> indexes;
+
+    public ColumnarResult(Column[] columns, int rowCount) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.indexes = new HashMap<String, Integer>(columns.length * 2);
+
+        for (int i = columns.length - 1; i >= 0; i--) {
+            indexes.put(columns[i].getName(), i);
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @param index 列下标,从0开始
+     */
+    public Column getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * @return 列,不存在时返回null
+     */
+    public Column getColumn(String name) {
+        Integer index = indexes.get(name);
+        return index == null ? null : columns[index];
+    }
+
+    public LongColumn getLongColumn(String name) {
+        return (LongColumn) getColumn(name);
+    }
+
+    public IntColumn getIntColumn(String name) {
+        return (IntColumn) getColumn(name);
+    }
+
+    public DoubleColumn getDoubleColumn(String name) {
+        return (DoubleColumn) getColumn(name);
+    }
+
+    public StringColumn getStringColumn(String name) {
+        return (StringColumn) getColumn(name);
+    }
+
+    public Object getObject(int row, String name) {
+        Column column = getColumn(name);
+        return column == null ? null : column.getObject(row);
+    }
+
+    /**
+     * 列数据,null值记录在位图中
+     */
+    public abstract static class Column {
+
+        private static final int DEFAULT_CAPACITY = 16;
+
+        private final String name;
+
+        private int size;
+
+        private BitSet nulls;
+
+        protected Column(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isNull(int row) {
+            return nulls != null && nulls.get(row);
+        }
+
+        public int getNullCount() {
+            return nulls == null ? 0 : nulls.cardinality();
+        }
+
+        public abstract Object getObject(int row);
+
+        /**
+         * 读取当前行的列值并追加到末尾
+         */
+        public void append(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == capacity()) {
+                resize(size == 0 ? DEFAULT_CAPACITY : size + (size >> 1));
+            }
+
+            if (!read(rs, columnIndex, size)) {
+                if (nulls == null) {
+                    nulls = new BitSet();
+                }
+                nulls.set(size);
+            }
+
+            size++;
+        }
+
+        /**
+         * 释放多余的容量
+         */
+        public void trim() {
+            if (size < capacity()) {
+                resize(size);
+            }
+        }
+
+        protected abstract int capacity();
+
+        protected abstract void resize(int capacity);
+
+        /**
+         * 读取列值并写入指定行
+         *
+         * @return 列值为null时返回false
+         */
+        protected abstract boolean read(ResultSet rs, int columnIndex, int row) throws SQLException;
+    }
+
+    public static class LongColumn extends Column {
+
+        private long[] values = new long[0];
+
+        public LongColumn(String name) {
+            super(name);
+        }
+
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        /**
+         * @return 非null值的总和
+         */
+        public long sum() {
+            long sum = 0;
+            for (int i = 0; i < size(); i++) {
+                sum += values[i];
+            }
+            return sum;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        protected int capacity() {
+            return values.length;
+        }
+
+        @Override
+        protected void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        protected boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            values[row] = rs.getLong(columnIndex);
+            return !rs.wasNull();
+        }
+    }
+
+    public static class IntColumn extends Column {
+
+        private int[] values = new int[0];
+
+        public IntColumn(String name) {
+            super(name);
+        }
+
+        public int getInt(int row) {
+            return values[row];
+        }
+
+        /**
+         * @return 非null值的总和
+         */
+        public long sum() {
+            long sum = 0;
+            for (int i = 0; i < size(); i++) {
+                sum += values[i];
+            }
+            return sum;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        protected int capacity() {
+            return values.length;
+        }
+
+        @Override
+        protected void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        protected boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            values[row] = rs.getInt(columnIndex);
+            return !rs.wasNull();
+        }
+    }
+
+    public static class DoubleColumn extends Column {
+
+        private double[] values = new double[0];
+
+        public DoubleColumn(String name) {
+            super(name);
+        }
+
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        /**
+         * @return 非null值的总和
+         */
+        public double sum() {
+            double sum = 0;
+            for (int i = 0; i < size(); i++) {
+                sum += values[i];
+            }
+            return sum;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        protected int capacity() {
+            return values.length;
+        }
+
+        @Override
+        protected void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        protected boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            values[row] = rs.getDouble(columnIndex);
+            return !rs.wasNull();
+        }
+    }
+
+    /**
+     * 字典编码的字符串列,相同的值只保存一份
+     * <p>
+     * 读取一定行数后,若不同值的数量超过已读行数的一定比例,则字典编码不再节省内存,改为直接保存字符串
+     */
+    public static class StringColumn extends Column {
+
+        public static final int NULL_CODE = -1;
+
+        /**
+         * 判断是否改为直接保存前至少读取的行数
+         */
+        private static final int MIN_ENCODING_SAMPLE_ROWS = 1024;
+
+        /**
+         * 不同值数量与已读行数之比超过该值时改为直接保存
+         */
+        private static final double MAX_ENCODING_CARDINALITY = 0.5;
+
+        private int[] codes = new int[0];
+
+        private String[] dictionary = new String[0];
+
+        private int dictionarySize;
+
+        /**
+         * 构建期间使用的值编码,trim或改为直接保存后释放
+         */
+        private Map<String, Integer> encodings = new HashMap<String, Integer>();
+
+        /**
+         * 直接保存的值,使用字典编码时为null
+         */
+        private String[] values;
+
+        public StringColumn(String name) {
+            super(name);
+        }
+
+        public String getString(int row) {
+            if (values != null) {
+                return values[row];
+            }
+
+            int code = codes[row];
+            return code == NULL_CODE ? null : dictionary[code];
+        }
+
+        /**
+         * 是否使用字典编码,否则getCode与getDictionary不可用
+         */
+        public boolean isEncoded() {
+            return values == null;
+        }
+
+        /**
+         * @return 值在字典中的编码,null值返回NULL_CODE
+         * @throws IllegalStateException 未使用字典编码
+         */
+        public int getCode(int row) {
+            if (values != null) {
+                throw new IllegalStateException("Column is not dictionary encoded:" + getName());
+            }
+
+            return codes[row];
+        }
+
+        /**
+         * @return 字典,下标即编码,不可修改;未使用字典编码时返回null
+         */
+        public String[] getDictionary() {
+            return dictionary;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return getString(row);
+        }
+
+        @Override
+        public void trim() {
+            super.trim();
+
+            if (dictionary != null && dictionarySize < dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, dictionarySize);
+            }
+            encodings = null;
+        }
+
+        @Override
+        protected int capacity() {
+            return values != null ? values.length : codes.length;
+        }
+
+        @Override
+        protected void resize(int capacity) {
+            if (values != null) {
+                values = Arrays.copyOf(values, capacity);
+            } else {
+                codes = Arrays.copyOf(codes, capacity);
+            }
+        }
+
+        @Override
+        protected boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            String value = rs.getString(columnIndex);
+
+            if (values != null) {
+                values[row] = value;
+                return value != null;
+            }
+
+            if (value == null) {
+                codes[row] = NULL_CODE;
+                return false;
+            }
+
+            Integer code = encodings.get(value);
+            if (code == null) {
+                if (row >= MIN_ENCODING_SAMPLE_ROWS && dictionarySize >= row * MAX_ENCODING_CARDINALITY) {
+                    decode(row);
+                    values[row] = value;
+                    return true;
+                }
+
+                if (dictionarySize == dictionary.length) {
+                    dictionary = Arrays.copyOf(dictionary, dictionarySize == 0 ? 16 : dictionarySize * 2);
+                }
+
+                code = dictionarySize;
+                dictionary[dictionarySize++] = value;
+                encodings.put(value, code);
+            }
+
+            codes[row] = code;
+            return true;
+        }
+
+        /**
+         * 将已读取的行改为直接保存并释放字典
+         */
+        private void decode(int rowCount) {
+            values = new String[codes.length];
+            for (int i = 0; i < rowCount; i++) {
+                int code = codes[i];
+                values[i] = code == NULL_CODE ? null : dictionary[code];
+            }
+
+            codes = null;
+            dictionary = null;
+            dictionarySize = 0;
+            encodings = null;
+        }
+    }
+
+    /**
+     * 无法使用基本类型存储的列,如日期、BigDecimal
+     */
+    public static class ObjectColumn extends Column {
+
+        private Object[] values = new Object[0];
+
+        public ObjectColumn(String name) {
+            super(name);
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return values[row];
+        }
+
+        @Override
+        protected int capacity() {
+            return values.length;
+        }
+
+        @Override
+        protected void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        protected boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            values[row] = rs.getObject(columnIndex);
+            return values[row] != null;
+        }
+    }
+}
\ No newline at end of file
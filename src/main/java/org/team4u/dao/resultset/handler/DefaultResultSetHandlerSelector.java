@@ -1,12 +1,13 @@
 package org.team4u.dao.resultset.handler;
 
 import cn.hutool.core.util.ClassUtil;
-import org.apache.commons.dbutils.BasicRowProcessor;
 import org.apache.commons.dbutils.ResultSetHandler;
 import org.apache.commons.dbutils.RowProcessor;
 import org.apache.commons.dbutils.handlers.BeanHandler;
 import org.apache.commons.dbutils.handlers.BeanListHandler;
+import org.team4u.dao.resultset.mapper.FieldRowMapperCompiler;
 import org.team4u.dao.resultset.processor.CamelCaseProcessor;
+import org.team4u.dao.resultset.processor.CompiledRowProcessor;
 import org.team4u.dao.resultset.processor.EntityProcessor;
 import org.team4u.kit.core.action.Callback;
 import org.team4u.kit.core.lang.Pair;
@@ -20,7 +21,7 @@ import java.util.Map;
 public class DefaultResultSetHandlerSelector implements ResultSetHandlerSelector {
 
     protected final static RowProcessor CAMEL_CASE_ROW_PROCESSOR =
-            new BasicRowProcessor(CamelCaseProcessor.DEFAULT_INSTANCE);
+            new CompiledRowProcessor(CamelCaseProcessor.DEFAULT_INSTANCE, FieldRowMapperCompiler.INSTANCE);
 
     protected EntityManager entityManager;
 
@@ -31,7 +32,7 @@ public class DefaultResultSetHandlerSelector implements ResultSetHandlerSelector
     }
 
     public DefaultResultSetHandlerSelector(EntityManager entityManager) {
-        this(entityManager, new BasicRowProcessor(new EntityProcessor(entityManager)));
+        this(entityManager, new CompiledRowProcessor(new EntityProcessor(entityManager), FieldRowMapperCompiler.INSTANCE));
     }
 
     public DefaultResultSetHandlerSelector(EntityManager entityManager, RowProcessor entityRowProcessor) {
@@ -64,6 +65,9 @@ public class DefaultResultSetHandlerSelector implements ResultSetHandlerSelector
     public <T> ResultSetHandler<T> selectForObject(Class<T> clazz) {
         if (entityManager.isEntity(clazz)) {
             return new BeanHandler<T>(clazz, entityRowProcessor);
+        } else if (ColumnarResult.class == clazz) {
+            //noinspection unchecked
+            return (ResultSetHandler<T>) new ColumnarHandler();
         } else if (ClassUtil.isSimpleValueType(clazz)) {
             return new PrimitiveWrapperHandler<T>(clazz);
         } else if (Map.class.isAssignableFrom(clazz)) {
@@ -101,4 +105,18 @@ public class DefaultResultSetHandlerSelector implements ResultSetHandlerSelector
             return new BeanCallbackHandler<T>(clazz, CAMEL_CASE_ROW_PROCESSOR, callback);
         }
     }
+
+    @Override
+    public <T> ResultSetHandler<T> selectForRow(Class<T> clazz) {
+        if (entityManager.isEntity(clazz)) {
+            return new BeanRowHandler<T>(clazz, entityRowProcessor);
+        } else if (ClassUtil.isSimpleValueType(clazz)) {
+            return new PrimitiveWrapperRowHandler<T>(clazz);
+        } else if (Map.class.isAssignableFrom(clazz)) {
+            //noinspection unchecked
+            return new MapRowHandler(clazz);
+        } else {
+            return new BeanRowHandler<T>(clazz, CAMEL_CASE_ROW_PROCESSOR);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package org.team4u.dao.resultset.handler;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * 将ResultSet的一列直接读取为int数组,避免逐行装箱及类型转换
+ * <p>
+ * null值按ResultSet.getInt()的约定读取为0
+ *
+ * @author Jay Wu
+ */
+public class IntArrayHandler implements ResultSetHandler<int[]> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    protected final int columnIndex;
+
+    public IntArrayHandler() {
+        this(1);
+    }
+
+    public IntArrayHandler(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    @Override
+    public int[] handle(ResultSet rs) throws SQLException {
+        int[] values = new int[DEFAULT_CAPACITY];
+        int size = 0;
+
+        while (rs.next()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1));
+            }
+            values[size++] = rs.getInt(columnIndex);
+        }
+
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+}
\ No newline at end of file
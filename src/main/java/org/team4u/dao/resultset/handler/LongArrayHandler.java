@@ -0,0 +1,44 @@
+package org.team4u.dao.resultset.handler;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * 将ResultSet的一列直接读取为long数组,避免逐行装箱及类型转换
+ * <p>
+ * null值按ResultSet.getLong()的约定读取为0
+ *
+ * @author Jay Wu
+ */
+public class LongArrayHandler implements ResultSetHandler<long[]> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    protected final int columnIndex;
+
+    public LongArrayHandler() {
+        this(1);
+    }
+
+    public LongArrayHandler(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    @Override
+    public long[] handle(ResultSet rs) throws SQLException {
+        long[] values = new long[DEFAULT_CAPACITY];
+        int size = 0;
+
+        while (rs.next()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1));
+            }
+            values[size++] = rs.getLong(columnIndex);
+        }
+
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+}
\ No newline at end of file
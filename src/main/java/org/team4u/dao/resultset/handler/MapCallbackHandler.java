@@ -26,8 +26,12 @@ public class MapCallbackHandler<T extends Map<String, Object>> implements Result
 
     @Override
     public T handle(ResultSet rs) throws SQLException {
+        String[] columnKeys = null;
         while (rs.next()) {
-            callback.invoke(DbUtil.toMap(type, rs, false));
+            if (columnKeys == null) {
+                columnKeys = DbUtil.getColumnKeys(rs.getMetaData(), false);
+            }
+            callback.invoke(DbUtil.toMap(type, rs, columnKeys));
         }
 
         return null;
@@ -5,6 +5,8 @@ import org.team4u.dao.util.DbUtil;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -14,6 +16,10 @@ public class MapListHandler<T extends Map<String, Object>> extends AbstractListH
 
     protected final Class<T> valueClassRef;
     protected boolean camelCase;
+    /**
+     * 目标类型可接收RowMap时使用紧凑的行数据,如Map.class
+     */
+    protected final boolean compact;
 
     public MapListHandler(Class<T> valueClassRef) {
         this(valueClassRef, false);
@@ -22,6 +28,42 @@ public class MapListHandler<T extends Map<String, Object>> extends AbstractListH
     public MapListHandler(Class<T> valueClassRef, boolean camelCase) {
         this.valueClassRef = valueClassRef;
         this.camelCase = camelCase;
+        this.compact = valueClassRef.isAssignableFrom(RowMap.class);
+    }
+
+    @Override
+    public List<T> handle(ResultSet rs) throws SQLException {
+        List<T> rows = new ArrayList<T>();
+        if (!rs.next()) {
+            return rows;
+        }
+
+        // 列名只需处理一次
+        String[] columnKeys = DbUtil.getColumnKeys(rs.getMetaData(), camelCase);
+        RowMap.Keys keys = compact ? RowMap.Keys.of(columnKeys) : null;
+        if (keys != null) {
+            do {
+                rows.add(toRowMap(rs, keys));
+            } while (rs.next());
+
+            return rows;
+        }
+
+        do {
+            rows.add(DbUtil.toMap(valueClassRef, rs, columnKeys));
+        } while (rs.next());
+
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected T toRowMap(ResultSet rs, RowMap.Keys keys) throws SQLException {
+        Object[] values = new Object[keys.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rs.getObject(i + 1);
+        }
+
+        return (T) new RowMap(keys, values);
     }
 
     @Override
@@ -0,0 +1,38 @@
+package org.team4u.dao.resultset.handler;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.team4u.dao.util.DbUtil;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * 将ResultSet当前行转换为Map,不移动游标
+ *
+ * @author Jay Wu
+ */
+public class MapRowHandler<T extends Map<String, Object>> implements ResultSetHandler<T> {
+
+    protected final Class<T> type;
+
+    /**
+     * 最近处理的ResultSet及其列名,同一ResultSet逐行转换时无需重复处理列名
+     */
+    private ResultSet lastResultSet;
+    private String[] columnKeys;
+
+    public MapRowHandler(Class<T> type) {
+        this.type = type;
+    }
+
+    @Override
+    public T handle(ResultSet rs) throws SQLException {
+        if (rs != lastResultSet) {
+            columnKeys = DbUtil.getColumnKeys(rs.getMetaData(), false);
+            lastResultSet = rs;
+        }
+
+        return DbUtil.toMap(type, rs, columnKeys);
+    }
+}
\ No newline at end of file
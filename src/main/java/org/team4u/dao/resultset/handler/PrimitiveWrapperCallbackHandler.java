@@ -1,6 +1,5 @@
 package org.team4u.dao.resultset.handler;
 
-import cn.hutool.core.convert.Convert;
 import org.apache.commons.dbutils.ResultSetHandler;
 import org.team4u.kit.core.action.Callback;
 
@@ -104,7 +103,7 @@ public class PrimitiveWrapperCallbackHandler<T> implements ResultSetHandler<T> {
                 value = rs.getObject(this.columnName);
             }
 
-            T result = Convert.convert(valueClassRef, value);
+            T result = PrimitiveWrapperHandler.convert(valueClassRef, value);
             callback.invoke(result);
         }
 
@@ -99,9 +99,22 @@ public class PrimitiveWrapperHandler<T> implements ResultSetHandler<T> {
                 value = rs.getObject(this.columnName);
             }
 
-            return Convert.convert(valueClassRef, value);
+            return convert(valueClassRef, value);
         }
 
         return null;
     }
+
+    /**
+     * Converts the column value into the given type. Values that are
+     * already of that type are returned as is, skipping <code>Convert</code>.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T convert(Class<T> valueClassRef, Object value) {
+        if (value == null || valueClassRef.isInstance(value)) {
+            return (T) value;
+        }
+
+        return Convert.convert(valueClassRef, value);
+    }
 }
\ No newline at end of file
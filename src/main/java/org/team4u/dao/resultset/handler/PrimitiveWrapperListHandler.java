@@ -1,6 +1,5 @@
 package org.team4u.dao.resultset.handler;
 
-import cn.hutool.core.convert.Convert;
 import org.apache.commons.dbutils.ResultSetHandler;
 import org.apache.commons.dbutils.handlers.AbstractListHandler;
 
@@ -84,6 +83,6 @@ public class PrimitiveWrapperListHandler<T> extends AbstractListHandler<T> {
             value = rs.getObject(this.columnName);
         }
 
-        return Convert.convert(valueClassRef, value);
+        return PrimitiveWrapperHandler.convert(valueClassRef, value);
     }
 }
\ No newline at end of file
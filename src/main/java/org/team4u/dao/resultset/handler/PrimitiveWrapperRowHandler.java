@@ -0,0 +1,25 @@
+package org.team4u.dao.resultset.handler;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 将ResultSet当前行的第一列转换为指定类型,不移动游标
+ *
+ * @author Jay Wu
+ */
+public class PrimitiveWrapperRowHandler<T> implements ResultSetHandler<T> {
+
+    protected final Class<T> valueClassRef;
+
+    public PrimitiveWrapperRowHandler(Class<T> valueClassRef) {
+        this.valueClassRef = valueClassRef;
+    }
+
+    @Override
+    public T handle(ResultSet rs) throws SQLException {
+        return PrimitiveWrapperHandler.convert(valueClassRef, rs.getObject(1));
+    }
+}
\ No newline at end of file
@@ -19,4 +19,9 @@ public interface ResultSetHandlerSelector {
     <T> ResultSetHandler<List<T>> selectForList(Class<T> clazz);
 
     <T> ResultSetHandler<T> selectForCallback(Class<T> clazz, Callback<T> callback);
+
+    /**
+     * 选择单行处理器,处理器仅转换ResultSet当前行,不移动游标
+     */
+    <T> ResultSetHandler<T> selectForRow(Class<T> clazz);
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+package org.team4u.dao.resultset.handler;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 紧凑的行数据Map,同一结果集的所有行共享列名数组,每行仅保存一个值数组
+ * <p>
+ * 修改已有列的值时直接写入值数组,新增或删除列时复制为LinkedHashMap后再修改(写时复制)
+ *
+ * @author Jay Wu
+ */
+public class RowMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Keys keys;
+
+    private final Object[] values;
+
+    /**
+     * 新增或删除列后的数据,为null时使用keys与values
+     */
+    private Map<String, Object> copy;
+
+    public RowMap(Keys keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return copy != null ? copy.size() : values.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return copy != null ? copy.containsKey(key) : keys.indexOf(key) != Keys.NOT_FOUND;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (copy != null) {
+            return copy.get(key);
+        }
+
+        int index = keys.indexOf(key);
+        return index == Keys.NOT_FOUND ? null : values[index];
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (copy == null) {
+            int index = keys.indexOf(key);
+            if (index != Keys.NOT_FOUND) {
+                Object oldValue = values[index];
+                values[index] = value;
+                return oldValue;
+            }
+        }
+
+        return copy().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (copy == null && !containsKey(key)) {
+            return null;
+        }
+
+        return copy().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        copy().clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (copy != null) {
+            return copy.entrySet();
+        }
+
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+
+    private Map<String, Object> copy() {
+        if (copy == null) {
+            Map<String, Object> map = new LinkedHashMap<String, Object>(values.length * 2);
+            for (int i = 0; i < values.length; i++) {
+                map.put(keys.names[i], values[i]);
+            }
+            copy = map;
+        }
+
+        return copy;
+    }
+
+    private Object writeReplace() {
+        return new LinkedHashMap<String, Object>(this);
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final int index = next++;
+            return new SimpleEntry<String, Object>(keys.names[index], values[index]) {
+                @Override
+                public Object setValue(Object value) {
+                    super.setValue(value);
+                    Object oldValue = values[index];
+                    values[index] = value;
+                    return oldValue;
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * 结果集共享的列名及其下标索引
+     */
+    public static class Keys {
+
+        public static final int NOT_FOUND = -1;
+
+        private final String[] names;
+
+        private final Map<String, Integer> indexes;
+
+        private Keys(String[] names, Map<String, Integer> indexes) {
+            this.names = names;
+            this.indexes = indexes;
+        }
+
+        /**
+         * 创建列名索引
+         *
+         * @param names 列名,创建后不可再修改
+         * @return 列名索引,存在重复列名时返回null
+         */
+        public static Keys of(String[] names) {
+            Map<String, Integer> indexes = new HashMap<String, Integer>(names.length * 2);
+
+            for (int i = 0; i < names.length; i++) {
+                if (indexes.put(names[i], i) != null) {
+                    return null;
+                }
+            }
+
+            return new Keys(names, indexes);
+        }
+
+        public int size() {
+            return names.length;
+        }
+
+        public int indexOf(Object name) {
+            Integer index = indexes.get(name);
+            return index == null ? NOT_FOUND : index;
+        }
+    }
+}
\ No newline at end of file
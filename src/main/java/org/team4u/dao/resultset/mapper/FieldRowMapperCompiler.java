@@ -0,0 +1,312 @@
+package org.team4u.dao.resultset.mapper;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLXML;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于字段直接赋值的RowMapper生成器
+ * <p>
+ * 每个类只生成一次:构造函数与字段在生成时设置为可访问,
+ * 每个属性根据其类型预先确定对应的ResultSet.getXxx方法,转换时无需再逐一比较类型。
+ *
+ * @author Jay Wu
+ */
+public enum FieldRowMapperCompiler implements RowMapperCompiler {
+
+    INSTANCE;
+
+    private static final Log log = LogFactory.get();
+
+    /**
+     * 无法生成的类使用该值占位,避免重复尝试
+     */
+    private static final FieldRowMapper<Object> NOT_SUPPORTED = new FieldRowMapper<Object>(null, null);
+
+    private final Map<Class<?>, FieldRowMapper<?>> mappers = new ConcurrentHashMap<Class<?>, FieldRowMapper<?>>();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> RowMapper<T> compile(Class<T> type, Field[] props) {
+        FieldRowMapper<?> mapper = mappers.get(type);
+
+        if (mapper == null) {
+            mapper = create(type, props);
+            mappers.put(type, mapper);
+        }
+
+        if (mapper == NOT_SUPPORTED) {
+            return null;
+        }
+
+        return (RowMapper<T>) mapper;
+    }
+
+    private <T> FieldRowMapper<?> create(Class<T> type, Field[] props) {
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+
+            PropertyWriter[] writers = new PropertyWriter[props.length];
+            for (int i = 0; i < props.length; i++) {
+                props[i].setAccessible(true);
+                writers[i] = PropertyWriter.of(props[i]);
+            }
+
+            return new FieldRowMapper<T>(constructor, writers);
+        } catch (NoSuchMethodException e) {
+            log.debug("Can't compile RowMapper(type={}), no default constructor", type.getName());
+            return NOT_SUPPORTED;
+        } catch (SecurityException e) {
+            log.debug("Can't compile RowMapper(type={}), {}", type.getName(), e.getMessage());
+            return NOT_SUPPORTED;
+        }
+    }
+
+    static class FieldRowMapper<T> implements RowMapper<T> {
+
+        private final Constructor<T> constructor;
+
+        private final PropertyWriter[] writers;
+
+        FieldRowMapper(Constructor<T> constructor, PropertyWriter[] writers) {
+            this.constructor = constructor;
+            this.writers = writers;
+        }
+
+        @Override
+        public T mapRow(ResultSet rs, int[] columnToProperty) throws SQLException {
+            T bean = newInstance();
+
+            try {
+                for (int i = 1; i < columnToProperty.length; i++) {
+                    int prop = columnToProperty[i];
+                    if (prop < 0) {
+                        continue;
+                    }
+
+                    writers[prop].write(bean, rs, i);
+                }
+            } catch (IllegalAccessException e) {
+                throw new SQLException("Cannot set property of " + bean.getClass().getName() + ": " + e.getMessage());
+            } catch (IllegalArgumentException e) {
+                throw new SQLException("Cannot set property of " + bean.getClass().getName() + ": " + e.getMessage());
+            }
+
+            return bean;
+        }
+
+        private T newInstance() throws SQLException {
+            try {
+                return constructor.newInstance();
+            } catch (InstantiationException e) {
+                throw new SQLException("Cannot create " + constructor.getName() + ": " + e.getMessage());
+            } catch (IllegalAccessException e) {
+                throw new SQLException("Cannot create " + constructor.getName() + ": " + e.getMessage());
+            } catch (InvocationTargetException e) {
+                throw new SQLException("Cannot create " + constructor.getName() + ": " + e.getTargetException());
+            }
+        }
+    }
+
+    /**
+     * 将一个字段值从结果集写入对象属性,转换规则与BeanProcessor一致
+     */
+    abstract static class PropertyWriter {
+
+        protected final Field field;
+
+        PropertyWriter(Field field) {
+            this.field = field;
+        }
+
+        abstract void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException;
+
+        static PropertyWriter of(Field field) {
+            Class<?> type = field.getType();
+
+            if (type == String.class) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        field.set(bean, rs.getString(index));
+                    }
+                };
+            } else if (type == Integer.TYPE) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        field.setInt(bean, rs.getInt(index));
+                    }
+                };
+            } else if (type == Integer.class) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        int value = rs.getInt(index);
+                        field.set(bean, rs.wasNull() ? null : Integer.valueOf(value));
+                    }
+                };
+            } else if (type == Long.TYPE) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        field.setLong(bean, rs.getLong(index));
+                    }
+                };
+            } else if (type == Long.class) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        long value = rs.getLong(index);
+                        field.set(bean, rs.wasNull() ? null : Long.valueOf(value));
+                    }
+                };
+            } else if (type == Boolean.TYPE) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        field.setBoolean(bean, rs.getBoolean(index));
+                    }
+                };
+            } else if (type == Boolean.class) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        boolean value = rs.getBoolean(index);
+                        field.set(bean, rs.wasNull() ? null : Boolean.valueOf(value));
+                    }
+                };
+            } else if (type == Double.TYPE) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        field.setDouble(bean, rs.getDouble(index));
+                    }
+                };
+            } else if (type == Double.class) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        double value = rs.getDouble(index);
+                        field.set(bean, rs.wasNull() ? null : Double.valueOf(value));
+                    }
+                };
+            } else if (type == Float.TYPE) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        field.setFloat(bean, rs.getFloat(index));
+                    }
+                };
+            } else if (type == Float.class) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        float value = rs.getFloat(index);
+                        field.set(bean, rs.wasNull() ? null : Float.valueOf(value));
+                    }
+                };
+            } else if (type == Short.TYPE) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        field.setShort(bean, rs.getShort(index));
+                    }
+                };
+            } else if (type == Short.class) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        short value = rs.getShort(index);
+                        field.set(bean, rs.wasNull() ? null : Short.valueOf(value));
+                    }
+                };
+            } else if (type == Byte.TYPE) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        field.setByte(bean, rs.getByte(index));
+                    }
+                };
+            } else if (type == Byte.class) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        byte value = rs.getByte(index);
+                        field.set(bean, rs.wasNull() ? null : Byte.valueOf(value));
+                    }
+                };
+            } else if (type == Timestamp.class) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        field.set(bean, rs.getTimestamp(index));
+                    }
+                };
+            } else if (type == SQLXML.class) {
+                return new PropertyWriter(field) {
+                    @Override
+                    void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+                        field.set(bean, rs.getSQLXML(index));
+                    }
+                };
+            }
+
+            return new ObjectPropertyWriter(field);
+        }
+    }
+
+    /**
+     * 其他类型通过getObject获取,并按BeanProcessor的规则进行转换
+     */
+    static class ObjectPropertyWriter extends PropertyWriter {
+
+        ObjectPropertyWriter(Field field) {
+            super(field);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void write(Object bean, ResultSet rs, int index) throws SQLException, IllegalAccessException {
+            Class<?> type = field.getType();
+            Object value = rs.getObject(index);
+
+            if (value == null) {
+                if (type == Character.TYPE) {
+                    field.setChar(bean, (char) 0);
+                } else {
+                    field.set(bean, null);
+                }
+                return;
+            }
+
+            if (value instanceof java.util.Date) {
+                if (type == java.sql.Date.class) {
+                    value = new java.sql.Date(((java.util.Date) value).getTime());
+                } else if (type == java.sql.Time.class) {
+                    value = new java.sql.Time(((java.util.Date) value).getTime());
+                }
+            } else if (value instanceof String && type.isEnum()) {
+                value = Enum.valueOf(type.asSubclass(Enum.class), (String) value);
+            }
+
+            if (type.isInstance(value) || (type == Character.TYPE && value instanceof Character)) {
+                field.set(bean, value);
+            } else {
+                throw new SQLException(
+                        "Cannot set " + field.getName() + ": incompatible types, cannot convert "
+                                + value.getClass().getName() + " to " + type.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.team4u.dao.resultset.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 将结果集的当前行转换为对象,由RowMapperCompiler针对具体类生成
+ *
+ * @author Jay Wu
+ */
+public interface RowMapper<T> {
+
+    /**
+     * 转换当前行
+     *
+     * @param rs               已定位到有效行的结果集
+     * @param columnToProperty 字段与属性的对应关系,参考BeanProcessor.ColumnMapping
+     * @return 转换后的对象
+     */
+    T mapRow(ResultSet rs, int[] columnToProperty) throws SQLException;
+}
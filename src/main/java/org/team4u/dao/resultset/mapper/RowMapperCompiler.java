@@ -0,0 +1,20 @@
+package org.team4u.dao.resultset.mapper;
+
+import java.lang.reflect.Field;
+
+/**
+ * 为指定类生成RowMapper
+ *
+ * @author Jay Wu
+ */
+public interface RowMapperCompiler {
+
+    /**
+     * 生成指定类的RowMapper,实现类应缓存生成结果
+     *
+     * @param type  目标类
+     * @param props 目标类属性,顺序与columnToProperty中的索引一致
+     * @return RowMapper, 若该类无法生成则返回null,此时将使用反射方式处理
+     */
+    <T> RowMapper<T> compile(Class<T> type, Field[] props);
+}
@@ -17,24 +17,23 @@ public class CamelCaseProcessor extends BeanProcessor {
     public final static CamelCaseProcessor DEFAULT_INSTANCE = new CamelCaseProcessor();
 
     @Override
-    protected int[] mapColumnsToProperties(ResultSetMetaData rsmd, Field[] props)
+    protected int[] mapColumnsToProperties(ResultSetMetaData rsmd, Field[] props, Class<?> type)
             throws SQLException {
         int cols = rsmd.getColumnCount();
         int[] columnToProperty = new int[cols + 1];
         Arrays.fill(columnToProperty, PROPERTY_NOT_FOUND);
 
+        PropertyIndex index = PropertyIndex.of(type, props);
+
         for (int col = 1; col <= cols; col++) {
             String columnName = rsmd.getColumnLabel(col);
             if (null == columnName || 0 == columnName.length()) {
                 columnName = rsmd.getColumnName(col);
             }
 
-            String propertyName = StrUtil.toCamelCase(columnName);
-            for (int i = 0; i < props.length; i++) {
-                if (propertyName.equalsIgnoreCase(props[i].getName())) {
-                    columnToProperty[col] = i;
-                    break;
-                }
+            int propertyIndex = index.indexOf(StrUtil.toCamelCase(columnName));
+            if (propertyIndex != PropertyIndex.NOT_FOUND) {
+                columnToProperty[col] = propertyIndex;
             }
         }
 
@@ -0,0 +1,116 @@
+package org.team4u.dao.resultset.processor;
+
+import org.apache.commons.dbutils.BasicRowProcessor;
+import org.apache.commons.dbutils.BeanProcessor;
+import org.team4u.dao.resultset.mapper.RowMapper;
+import org.team4u.dao.resultset.mapper.RowMapperCompiler;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 优先使用RowMapperCompiler生成的RowMapper转换对象的RowProcessor
+ * <p>
+ * 字段与属性的对应关系仍由BeanProcessor决定;若目标类无法生成RowMapper,则退回BeanProcessor的反射处理。
+ * 生成的RowMapper不会调用BeanProcessor的processColumn与newInstance,
+ * 因此BeanProcessor子类重写了这两个方法时始终使用BeanProcessor转换
+ *
+ * @author Jay Wu
+ */
+public class CompiledRowProcessor extends BasicRowProcessor {
+
+    protected final BeanProcessor convert;
+
+    protected final RowMapperCompiler compiler;
+
+    /**
+     * 是否可使用生成的RowMapper
+     */
+    protected final boolean compilable;
+
+    public CompiledRowProcessor(BeanProcessor convert, RowMapperCompiler compiler) {
+        super(convert);
+        this.convert = convert;
+        this.compiler = compiler;
+        this.compilable = !overridesBeanHooks(convert.getClass());
+    }
+
+    /**
+     * 确定结果集的字段对应关系及RowMapper,同一结果集逐行转换时只需处理一次
+     */
+    public <T> Prepared<T> prepare(ResultSetMetaData rsmd, Class<T> type) throws SQLException {
+        BeanProcessor.ColumnMapping mapping = convert.columnMapping(rsmd, type);
+        RowMapper<T> mapper = compilable ? compiler.compile(type, mapping.getProps()) : null;
+        return new Prepared<T>(type, mapping, mapper);
+    }
+
+    @Override
+    public <T> T toBean(ResultSet rs, Class<T> type) throws SQLException {
+        return prepare(rs.getMetaData(), type).toBean(rs);
+    }
+
+    @Override
+    public <T> List<T> toBeanList(ResultSet rs, Class<T> type) throws SQLException {
+        List<T> results = new ArrayList<T>();
+
+        if (!rs.next()) {
+            return results;
+        }
+
+        Prepared<T> prepared = prepare(rs.getMetaData(), type);
+        do {
+            results.add(prepared.toBean(rs));
+        } while (rs.next());
+
+        return results;
+    }
+
+    private static boolean overridesBeanHooks(Class<?> type) {
+        for (Class<?> c = type; c != BeanProcessor.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("processColumn", ResultSet.class, int.class, Class.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // 继续检查
+            }
+
+            try {
+                c.getDeclaredMethod("newInstance", Class.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // 继续检查
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * 已确定字段对应关系的转换器,仅适用于同一结果集
+     */
+    public class Prepared<T> {
+
+        private final Class<T> type;
+
+        private final BeanProcessor.ColumnMapping mapping;
+
+        private final RowMapper<T> mapper;
+
+        Prepared(Class<T> type, BeanProcessor.ColumnMapping mapping, RowMapper<T> mapper) {
+            this.type = type;
+            this.mapping = mapping;
+            this.mapper = mapper;
+        }
+
+        public T toBean(ResultSet rs) throws SQLException {
+            if (mapper == null) {
+                return convert.toBean(rs, type, mapping);
+            }
+
+            return mapper.mapRow(rs, mapping.getColumnToProperty());
+        }
+    }
+}
\ No newline at end of file
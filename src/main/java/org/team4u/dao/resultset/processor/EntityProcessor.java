@@ -8,21 +8,27 @@ import org.team4u.sql.builder.entity.EntityManager;
 import org.team4u.sql.builder.entity.builder.EntitySqlBuilder;
 
 import java.lang.reflect.Field;
-import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * 根据实体的列定义映射属性,实体及列映射按类缓存,可在任意线程中使用
+ *
  * @author Jay Wu
  */
 public class EntityProcessor extends BeanProcessor {
 
+    /**
+     * 每个实体最多缓存的列名数
+     */
+    private static final int MAX_COLUMN_CACHE_SIZE = 256;
+
     private EntityManager entityManager;
 
-    private ThreadLocal<Class<?>> typeThreadLocal = new ThreadLocal<Class<?>>();
+    private final Map<Class<?>, EntityPlan> plans = new ConcurrentHashMap<Class<?>, EntityPlan>();
 
     public EntityProcessor() {
         this(EntitySqlBuilder.DEFAULT_ENTITY_MANAGER);
@@ -39,26 +45,13 @@ public class EntityProcessor extends BeanProcessor {
     }
 
     @Override
-    public <T> List<T> toBeanList(ResultSet rs, Class<T> type) throws SQLException {
-        typeThreadLocal.set(type);
-        return super.toBeanList(rs, type);
-    }
-
-    @Override
-    public <T> T toBean(ResultSet rs, Class<T> type) throws SQLException {
-        typeThreadLocal.set(type);
-        return super.toBean(rs, type);
-    }
-
-    @Override
-    protected int[] mapColumnsToProperties(ResultSetMetaData rsmd, Field[] props)
+    protected int[] mapColumnsToProperties(ResultSetMetaData rsmd, Field[] props, Class<?> type)
             throws SQLException {
         int cols = rsmd.getColumnCount();
         int[] columnToProperty = new int[cols + 1];
         Arrays.fill(columnToProperty, PROPERTY_NOT_FOUND);
 
-        Entity entity = entityManager.createIfNotExist(typeThreadLocal.get());
-        Assert.notNull(entity, String.format("Can't find entity(table=%s)", entity.getTable()));
+        EntityPlan plan = plan(type, props);
 
         for (int col = 1; col <= cols; col++) {
             String columnName = rsmd.getColumnLabel(col);
@@ -66,22 +59,68 @@ public class EntityProcessor extends BeanProcessor {
                 columnName = rsmd.getColumnName(col);
             }
 
-            Entity.Column column = entity.getColumnWithColumnName(columnName);
+            columnToProperty[col] = plan.propertyIndex(columnName);
+        }
 
-            if (column == null) {
-                continue;
-            }
+        return columnToProperty;
+    }
+
+    protected EntityPlan plan(Class<?> type, Field[] props) {
+        EntityPlan plan = plans.get(type);
+
+        if (plan == null) {
+            Entity entity = entityManager.createIfNotExist(type);
+            Assert.notNull(entity, String.format("Can't find entity(type=%s)", type));
+
+            plan = new EntityPlan(entity, PropertyIndex.of(type, props));
+            plans.put(type, plan);
+        }
 
-            String propertyName = column.getProperty().getName();
+        return plan;
+    }
+
+    /**
+     * 实体类的列名与属性下标映射
+     */
+    protected static class EntityPlan {
+
+        private final Entity entity;
+
+        private final PropertyIndex propertyIndex;
+
+        private final Map<String, Integer> columnIndexes = new ConcurrentHashMap<String, Integer>();
+
+        EntityPlan(Entity entity, PropertyIndex propertyIndex) {
+            this.entity = entity;
+            this.propertyIndex = propertyIndex;
+        }
+
+        public Entity getEntity() {
+            return entity;
+        }
+
+        /**
+         * @return 列对应的属性下标,未找到时返回PROPERTY_NOT_FOUND
+         */
+        public int propertyIndex(String columnName) {
+            Integer index = columnIndexes.get(columnName);
+            if (index != null) {
+                return index;
+            }
 
-            for (int i = 0; i < props.length; i++) {
-                if (propertyName.equalsIgnoreCase(props[i].getName())) {
-                    columnToProperty[col] = i;
-                    break;
+            index = PROPERTY_NOT_FOUND;
+            Entity.Column column = entity.getColumnWithColumnName(columnName);
+            if (column != null) {
+                int i = propertyIndex.indexOf(column.getProperty().getName());
+                if (i != PropertyIndex.NOT_FOUND) {
+                    index = i;
                 }
             }
-        }
 
-        return columnToProperty;
+            if (columnIndexes.size() < MAX_COLUMN_CACHE_SIZE) {
+                columnIndexes.put(columnName, index);
+            }
+            return index;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package org.team4u.dao.resultset.processor;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类属性的忽略大小写名称索引,按类构建一次后复用
+ *
+ * @author Jay Wu
+ */
+public class PropertyIndex {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final Map<Class<?>, PropertyIndex> cache = new ConcurrentHashMap<Class<?>, PropertyIndex>();
+
+    private final Field[] props;
+
+    private final Map<String, Integer> indexes;
+
+    private PropertyIndex(Field[] props) {
+        this.props = props;
+        this.indexes = new HashMap<String, Integer>(props.length * 2);
+
+        // 倒序写入,名称相同时保留第一个属性
+        for (int i = props.length - 1; i >= 0; i--) {
+            indexes.put(props[i].getName().toLowerCase(Locale.ENGLISH), i);
+        }
+    }
+
+    /**
+     * 获取类的属性索引
+     *
+     * @param props 类的属性,索引返回的下标与之对应
+     */
+    public static PropertyIndex of(Class<?> type, Field[] props) {
+        PropertyIndex index = cache.get(type);
+
+        if (index == null || index.props != props) {
+            index = new PropertyIndex(props);
+            cache.put(type, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * 忽略大小写查找属性下标
+     *
+     * @return 属性下标,未找到时返回NOT_FOUND
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name.toLowerCase(Locale.ENGLISH));
+        return index == null ? NOT_FOUND : index;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package org.team4u.dao.shard;
+
+/**
+ * 按分片键取模分片,整数类型按数值取模,其他类型按hashCode取模
+ *
+ * @author Jay Wu
+ */
+public enum HashShardStrategy implements ShardStrategy {
+
+    INSTANCE;
+
+    @Override
+    public int shard(Object shardKey, int shardCount) {
+        if (shardKey == null) {
+            throw new IllegalArgumentException("Shard key is null");
+        }
+
+        long value;
+        if (shardKey instanceof Long || shardKey instanceof Integer ||
+                shardKey instanceof Short || shardKey instanceof Byte) {
+            value = ((Number) shardKey).longValue();
+        } else {
+            value = shardKey.hashCode();
+        }
+
+        return (int) Math.abs(value % shardCount);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package org.team4u.dao.shard;
+
+import org.team4u.dao.core.ResultIterator;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 对多个已排序的结果迭代器进行k路归并,每次仅持有各迭代器的当前记录
+ *
+ * @author Jay Wu
+ */
+public class MergedResultIterator<T> extends ResultIterator<T> {
+
+    private final List<ResultIterator<T>> iterators;
+
+    private final PriorityQueue<Head<T>> heads;
+
+    private T current;
+
+    /**
+     * @param iterators  各分片的结果迭代器,须已按comparator排序
+     * @param comparator 排序规则,与各分片SQL中的ORDER BY一致
+     */
+    public MergedResultIterator(List<ResultIterator<T>> iterators, final Comparator<? super T> comparator) {
+        this.iterators = iterators;
+        this.heads = new PriorityQueue<Head<T>>(Math.max(1, iterators.size()), new Comparator<Head<T>>() {
+            @Override
+            public int compare(Head<T> o1, Head<T> o2) {
+                int result = comparator.compare(o1.value, o2.value);
+                // 排序值相同时按分片顺序输出,保证结果稳定
+                return result != 0 ? result : o1.index - o2.index;
+            }
+        });
+
+        try {
+            for (int i = 0; i < iterators.size(); i++) {
+                ResultIterator<T> it = iterators.get(i);
+                if (it.hasNext()) {
+                    heads.add(new Head<T>(i, it.next(), it));
+                }
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    protected boolean fetch() {
+        Head<T> head = heads.poll();
+        if (head == null) {
+            return false;
+        }
+
+        current = head.value;
+        try {
+            if (head.iterator.hasNext()) {
+                head.value = head.iterator.next();
+                heads.add(head);
+            }
+        } catch (RuntimeException e) {
+            // 单个分片读取失败时,关闭其余分片的连接
+            close();
+            throw e;
+        }
+
+        return true;
+    }
+
+    @Override
+    protected T read() {
+        return current;
+    }
+
+    @Override
+    protected void onClose() {
+        for (ResultIterator<T> it : iterators) {
+            it.close();
+        }
+    }
+
+    private static class Head<T> {
+
+        private final int index;
+
+        private final ResultIterator<T> iterator;
+
+        private T value;
+
+        Head(int index, T value, ResultIterator<T> iterator) {
+            this.index = index;
+            this.value = value;
+            this.iterator = iterator;
+        }
+    }
+}
\ No newline at end of file
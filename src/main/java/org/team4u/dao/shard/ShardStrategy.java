@@ -0,0 +1,16 @@
+package org.team4u.dao.shard;
+
+/**
+ * 分片策略,根据分片键计算分片序号
+ *
+ * @author Jay Wu
+ */
+public interface ShardStrategy {
+
+    /**
+     * @param shardKey   分片键
+     * @param shardCount 分片数量
+     * @return 分片序号,范围为[0, shardCount)
+     */
+    int shard(Object shardKey, int shardCount);
+}
\ No newline at end of file
@@ -0,0 +1,442 @@
+package org.team4u.dao.shard;
+
+import cn.hutool.core.collection.CollectionUtil;
+import cn.hutool.core.lang.Assert;
+import org.team4u.dao.core.Dao;
+import org.team4u.dao.core.ResultIterator;
+import org.team4u.dao.core.SimpleAsyncDao;
+import org.team4u.dao.core.SimpleDao;
+import org.team4u.dao.util.DbUtil;
+import org.team4u.kit.core.action.Callback;
+import org.team4u.kit.core.error.ExceptionUtil;
+import org.team4u.kit.core.lang.EmptyValue;
+import org.team4u.kit.core.lang.Pager;
+import org.team4u.sql.builder.Sql;
+import org.team4u.sql.builder.entity.Entity;
+import org.team4u.sql.builder.entity.EntityManager;
+import org.team4u.sql.builder.entity.builder.EntitySqlBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 分片Dao
+ * <p>
+ * 写操作根据实体分片列的值路由到对应分片;查询并行发送至所有分片后合并结果,排序查询采用k路归并。
+ * 当前线程处于事务中,或分片不是SimpleDao而无法判断事务状态时,各分片操作在当前线程中依次执行
+ *
+ * @author Jay Wu
+ */
+public class ShardedDao {
+
+    protected final List<Dao> shards;
+
+    protected final String shardColumn;
+
+    protected final ShardStrategy shardStrategy;
+
+    protected final ExecutorService executorService;
+
+    protected EntityManager entityManager = EntitySqlBuilder.DEFAULT_ENTITY_MANAGER;
+
+    /**
+     * @param shards      各分片的Dao,顺序即分片序号
+     * @param shardColumn 实体中作为分片键的列名
+     */
+    public ShardedDao(List<? extends Dao> shards, String shardColumn) {
+        this(shards, shardColumn, HashShardStrategy.INSTANCE,
+                SimpleAsyncDao.createExecutorService(shards.size() * 2, SimpleAsyncDao.DEFAULT_QUEUE_SIZE));
+    }
+
+    public ShardedDao(List<? extends Dao> shards,
+                      String shardColumn,
+                      ShardStrategy shardStrategy,
+                      ExecutorService executorService) {
+        Assert.notEmpty(shards, "Shards is empty");
+
+        this.shards = new ArrayList<Dao>(shards);
+        this.shardColumn = shardColumn;
+        this.shardStrategy = shardStrategy;
+        this.executorService = executorService;
+    }
+
+    /**
+     * 根据分片键获取分片Dao,可用于单分片查询
+     */
+    public Dao shard(Object shardKey) {
+        return shards.get(shardStrategy.shard(shardKey, shards.size()));
+    }
+
+    /**
+     * 根据实体分片列的值获取分片Dao
+     */
+    public Dao shardOf(Object entity) {
+        return shards.get(shardIndexOf(entity));
+    }
+
+    public <T> T insert(T entity) {
+        return shardOf(entity).insert(entity);
+    }
+
+    public <T> int[] insert(List<T> entities) {
+        return executeByShard(entities, new ShardAction<T>() {
+            @Override
+            public int[] execute(Dao dao, List<T> shardEntities) {
+                return dao.insert(shardEntities);
+            }
+        });
+    }
+
+    public <T> int[] fastInsert(List<T> entities) {
+        return executeByShard(entities, new ShardAction<T>() {
+            @Override
+            public int[] execute(Dao dao, List<T> shardEntities) {
+                return dao.fastInsert(shardEntities);
+            }
+        });
+    }
+
+    public int update(Object entity) {
+        return shardOf(entity).update(entity);
+    }
+
+    public <T> int[] update(List<T> entities) {
+        return executeByShard(entities, new ShardAction<T>() {
+            @Override
+            public int[] execute(Dao dao, List<T> shardEntities) {
+                return dao.update(shardEntities);
+            }
+        });
+    }
+
+    public int delete(Object entity) {
+        return shardOf(entity).delete(entity);
+    }
+
+    public <T> int[] delete(List<T> entities) {
+        return executeByShard(entities, new ShardAction<T>() {
+            @Override
+            public int[] execute(Dao dao, List<T> shardEntities) {
+                return dao.delete(shardEntities);
+            }
+        });
+    }
+
+    /**
+     * 并行查询所有分片,按分片顺序拼接结果
+     */
+    public <T> List<T> queryForList(final Class<T> resultClass, final Sql sql) {
+        List<T> result = new ArrayList<T>();
+
+        for (List<T> shardResult : invokeAll(new ShardCallable<List<T>>() {
+            @Override
+            public List<T> call(Dao dao) {
+                return dao.queryForList(resultClass, sql);
+            }
+        })) {
+            result.addAll(shardResult);
+        }
+
+        return result;
+    }
+
+    /**
+     * 并行分页查询所有分片,并按comparator归并
+     * <p>
+     * sql须包含与comparator一致的ORDER BY,各分片将查询前offset+pageSize条记录
+     *
+     * @param comparator 排序规则
+     * @param pager      分页对象,自动计数时将汇总各分片的记录数
+     */
+    public <T> List<T> queryForList(final Class<T> resultClass,
+                                    final Sql sql,
+                                    Comparator<? super T> comparator,
+                                    Pager pager) {
+        if (pager.isAutoCount()) {
+            pager.setRecordCount(count(sql));
+        }
+
+        final int offset = pager.getOffset();
+        final int limit = offset + pager.getPageSize();
+
+        List<List<T>> shardResults = invokeAll(new ShardCallable<List<T>>() {
+            @Override
+            public List<T> call(Dao dao) {
+                return dao.queryForList(resultClass, sql, new Pager().setPageSize(limit).setPageNumber(1));
+            }
+        });
+
+        List<ResultIterator<T>> iterators = new ArrayList<ResultIterator<T>>(shardResults.size());
+        for (List<T> shardResult : shardResults) {
+            iterators.add(iterator(shardResult.iterator()));
+        }
+
+        MergedResultIterator<T> it = new MergedResultIterator<T>(iterators, comparator);
+        List<T> result = new ArrayList<T>(pager.getPageSize());
+        for (int i = 0; i < limit && it.hasNext(); i++) {
+            T value = it.next();
+            if (i >= offset) {
+                result.add(value);
+            }
+        }
+
+        it.close();
+        return result;
+    }
+
+    /**
+     * 并行统计所有分片的记录数
+     */
+    public int count(final Sql sql) {
+        int count = 0;
+
+        for (Integer shardCount : invokeAll(new ShardCallable<Integer>() {
+            @Override
+            public Integer call(Dao dao) {
+                return dao.count(sql);
+            }
+        })) {
+            count += shardCount;
+        }
+
+        return count;
+    }
+
+    /**
+     * 并行迭代所有分片,callback将被串行调用,但记录的先后顺序不确定
+     */
+    public <T> void each(final Class<T> resultClass, final Sql sql, final Callback<T> callback) {
+        final Callback<T> serialCallback = new Callback<T>() {
+            @Override
+            public void invoke(T obj) {
+                synchronized (this) {
+                    callback.invoke(obj);
+                }
+            }
+        };
+
+        invokeAll(new ShardCallable<Void>() {
+            @Override
+            public Void call(Dao dao) {
+                dao.each(resultClass, sql, serialCallback);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 以游标方式读取所有分片,并按comparator逐条归并,内存中仅保留各分片的当前记录
+     * <p>
+     * sql须包含与comparator一致的ORDER BY,迭代期间将占用每个分片的一个数据库连接
+     */
+    public <T> ResultIterator<T> stream(final Class<T> resultClass,
+                                        final Sql sql,
+                                        Comparator<? super T> comparator) {
+        List<Future<ResultIterator<T>>> futures = new ArrayList<Future<ResultIterator<T>>>(shards.size());
+        for (final Dao dao : shards) {
+            Callable<ResultIterator<T>> task = new Callable<ResultIterator<T>>() {
+                @Override
+                public ResultIterator<T> call() throws Exception {
+                    return dao.stream(resultClass, sql);
+                }
+            };
+
+            if (isTransactionBound()) {
+                FutureTask<ResultIterator<T>> future = new FutureTask<ResultIterator<T>>(task);
+                future.run();
+                futures.add(future);
+            } else {
+                futures.add(executorService.submit(task));
+            }
+        }
+
+        // 任一分片查询失败时,关闭其他分片已打开的迭代器
+        List<ResultIterator<T>> iterators = new ArrayList<ResultIterator<T>>(futures.size());
+        Throwable error = null;
+        for (Future<ResultIterator<T>> future : futures) {
+            try {
+                iterators.add(future.get());
+            } catch (ExecutionException e) {
+                error = error == null ? e.getCause() : error;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = error == null ? e : error;
+            }
+        }
+
+        if (error != null) {
+            for (ResultIterator<T> it : iterators) {
+                it.close();
+            }
+            throw ExceptionUtil.toRuntimeException(error);
+        }
+
+        return new MergedResultIterator<T>(iterators, comparator);
+    }
+
+    public List<Dao> getShards() {
+        return shards;
+    }
+
+    public ShardedDao setEntityManager(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        return this;
+    }
+
+    /**
+     * 关闭线程池
+     */
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    protected int shardIndexOf(Object entity) {
+        Entity<?> entityInfo = entityManager.createIfNotExist(entity.getClass());
+        Entity.Column column = entityInfo.getColumnWithColumnName(shardColumn);
+        Assert.notNull(column, String.format("Can't find shard column(table=%s, column=%s)",
+                entityInfo.getTable(), shardColumn));
+
+        return shardStrategy.shard(DbUtil.getColumnValue(column, entity), shards.size());
+    }
+
+    /**
+     * 按分片分组后并行执行写操作,返回结果与entities顺序一致
+     */
+    protected <T> int[] executeByShard(List<T> entities, final ShardAction<T> action) {
+        if (CollectionUtil.isEmpty(entities)) {
+            return EmptyValue.EMPTY_INT_ARRAY;
+        }
+
+        final List<List<T>> shardEntities = new ArrayList<List<T>>(shards.size());
+        final List<List<Integer>> shardIndexes = new ArrayList<List<Integer>>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            shardEntities.add(new ArrayList<T>());
+            shardIndexes.add(new ArrayList<Integer>());
+        }
+
+        for (int i = 0; i < entities.size(); i++) {
+            int shardIndex = shardIndexOf(entities.get(i));
+            shardEntities.get(shardIndex).add(entities.get(i));
+            shardIndexes.get(shardIndex).add(i);
+        }
+
+        List<Callable<int[]>> tasks = new ArrayList<Callable<int[]>>();
+        final List<Integer> taskShards = new ArrayList<Integer>();
+        for (int i = 0; i < shards.size(); i++) {
+            if (shardEntities.get(i).isEmpty()) {
+                continue;
+            }
+
+            final int shardIndex = i;
+            taskShards.add(shardIndex);
+            tasks.add(new Callable<int[]>() {
+                @Override
+                public int[] call() throws Exception {
+                    return action.execute(shards.get(shardIndex), shardEntities.get(shardIndex));
+                }
+            });
+        }
+
+        List<int[]> shardResults = invokeAll(tasks);
+
+        int[] result = new int[entities.size()];
+        for (int i = 0; i < shardResults.size(); i++) {
+            List<Integer> indexes = shardIndexes.get(taskShards.get(i));
+            int[] shardResult = shardResults.get(i);
+            for (int j = 0; j < indexes.size() && j < shardResult.length; j++) {
+                result[indexes.get(j)] = shardResult[j];
+            }
+        }
+
+        return result;
+    }
+
+    protected <R> List<R> invokeAll(final ShardCallable<R> callable) {
+        List<Callable<R>> tasks = new ArrayList<Callable<R>>(shards.size());
+
+        for (final Dao dao : shards) {
+            tasks.add(new Callable<R>() {
+                @Override
+                public R call() throws Exception {
+                    return callable.call(dao);
+                }
+            });
+        }
+
+        return invokeAll(tasks);
+    }
+
+    /**
+     * 并行执行各分片任务,当前线程存在事务时,由于事务连接与线程绑定,将在当前线程中依次执行
+     */
+    protected <R> List<R> invokeAll(List<Callable<R>> tasks) {
+        List<R> result = new ArrayList<R>(tasks.size());
+
+        try {
+            if (tasks.size() == 1 || isTransactionBound()) {
+                for (Callable<R> task : tasks) {
+                    result.add(task.call());
+                }
+                return result;
+            }
+
+            for (Future<R> future : executorService.invokeAll(tasks)) {
+                result.add(future.get());
+            }
+            return result;
+        } catch (ExecutionException e) {
+            throw ExceptionUtil.toRuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ExceptionUtil.toRuntimeException(e);
+        } catch (Exception e) {
+            throw ExceptionUtil.toRuntimeException(e);
+        }
+    }
+
+    /**
+     * 判断当前线程是否存在事务,事务连接与线程绑定,无法在其他线程中使用
+     * <p>
+     * 事务状态由各分片SimpleDao的ConnectionHandler判断(包括Spring事务),任一分片处于事务中或无法判断时视为存在事务
+     */
+    protected boolean isTransactionBound() {
+        for (Dao dao : shards) {
+            if (!(dao instanceof SimpleDao) || ((SimpleDao) dao).isInTransaction()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+        private static <T> ResultIterator<T> iterator(final Iterator<T> it) {
+        return new ResultIterator<T>() {
+            @Override
+            protected boolean fetch() {
+                return it.hasNext();
+            }
+
+            @Override
+            protected T read() {
+                return it.next();
+            }
+        };
+    }
+
+    protected interface ShardCallable<R> {
+
+        R call(Dao dao);
+    }
+
+    protected interface ShardAction<T> {
+
+        int[] execute(Dao dao, List<T> shardEntities);
+    }
+}
\ No newline at end of file
@@ -10,7 +10,7 @@ import java.sql.SQLException;
 /**
  * @author Jay Wu
  */
-public enum DefaultConnectionHandler implements ConnectionHandler {
+public enum DefaultConnectionHandler implements TransactionAwareConnectionHandler {
 
     INSTANCE;
 
@@ -48,4 +48,17 @@ public enum DefaultConnectionHandler implements ConnectionHandler {
             throw ExceptionUtil.toRuntimeException(e);
         }
     }
+
+    @Override
+    public boolean isInTransaction() {
+        return Transactions.get() != null;
+    }
+
+    @Override
+    public void afterCommit(Runnable action) {
+        Transaction transaction = Transactions.get();
+        if (transaction != null) {
+            transaction.afterCommit(action);
+        }
+    }
 }
\ No newline at end of file
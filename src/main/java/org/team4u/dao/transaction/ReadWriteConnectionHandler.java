@@ -0,0 +1,22 @@
+package org.team4u.dao.transaction;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 支持读写分离的ConnectionHandler
+ * <p>
+ * 只读操作通过getReadConnection获取连接,写操作及事务仍通过getConnection获取主库连接,两者均通过releaseConnection释放
+ *
+ * @author Jay Wu
+ */
+public interface ReadWriteConnectionHandler extends ConnectionHandler {
+
+    /**
+     * 获取只读操作使用的数据库连接
+     *
+     * @param dataSource 主库数据源
+     */
+    Connection getReadConnection(DataSource dataSource) throws SQLException;
+}
\ No newline at end of file
@@ -0,0 +1,355 @@
+package org.team4u.dao.transaction;
+
+import cn.hutool.core.lang.Assert;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.commons.dbutils.ProxyFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 读写分离ConnectionHandler
+ * <p>
+ * 只读操作按负载均衡策略分发至从库,写操作及事务内的所有操作由主库处理,以保证事务内可读到已写入的数据。
+ * <p>
+ * 获取连接失败或语句平均执行耗时超过阈值的从库将暂时移出,到期后重新加入;无可用从库时由主库处理。
+ * <p>
+ * 耗时仅统计语句的执行(execute*)时间,不包含逐行读取结果及回调处理的时间,避免长时间的流式读取影响从库状态
+ *
+ * @author Jay Wu
+ */
+public class ReplicaConnectionHandler implements ReadWriteConnectionHandler, TransactionAwareConnectionHandler {
+
+    private static final Log log = LogFactory.get();
+
+    /**
+     * 负载均衡策略
+     */
+    public enum Balance {
+        /**
+         * 轮询
+         */
+        ROUND_ROBIN,
+        /**
+         * 选择当前执行中请求最少的从库
+         */
+        LEAST_OUTSTANDING
+    }
+
+    protected final ConnectionHandler primaryHandler;
+
+    protected final List<Replica> replicas;
+
+    protected final Balance balance;
+
+    protected final Map<Connection, Replica> borrowedConnections = new ConcurrentHashMap<Connection, Replica>();
+
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    /**
+     * 语句平均执行耗时超过该值(毫秒)的从库将暂时移出,小于等于0则不检测
+     */
+    protected volatile long slowThresholdMillis = 0;
+
+    /**
+     * 从库移出的时长(毫秒)
+     */
+    protected volatile long penaltyMillis = 30 * 1000;
+
+    public ReplicaConnectionHandler(List<DataSource> replicas) {
+        this(replicas, Balance.ROUND_ROBIN);
+    }
+
+    public ReplicaConnectionHandler(List<DataSource> replicas, Balance balance) {
+        this(DefaultConnectionHandler.INSTANCE, replicas, balance);
+    }
+
+    /**
+     * @param primaryHandler 主库连接处理器,如DefaultConnectionHandler或SpringConnectionHandler
+     * @param replicas       从库数据源
+     * @param balance        负载均衡策略
+     */
+    public ReplicaConnectionHandler(ConnectionHandler primaryHandler, List<DataSource> replicas, Balance balance) {
+        Assert.notNull(primaryHandler, "Primary handler is null");
+
+        this.primaryHandler = primaryHandler;
+        this.balance = balance;
+
+        List<Replica> replicaList = new ArrayList<Replica>(replicas.size());
+        for (DataSource replica : replicas) {
+            replicaList.add(new Replica(replica));
+        }
+        this.replicas = Collections.unmodifiableList(replicaList);
+    }
+
+    @Override
+    public Connection getConnection(DataSource dataSource) throws SQLException {
+        return primaryHandler.getConnection(dataSource);
+    }
+
+    @Override
+    public Connection getReadConnection(DataSource dataSource) throws SQLException {
+        // 事务内读主库,保证可读到事务内已写入的数据
+        if (isInTransaction()) {
+            return primaryHandler.getConnection(dataSource);
+        }
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = select(now);
+            if (replica == null) {
+                break;
+            }
+
+            Connection connection;
+            try {
+                connection = replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                log.warn(e, "Get replica connection failed, replica is removed for {}ms", penaltyMillis);
+                replica.markDown(now + penaltyMillis);
+                continue;
+            }
+
+            replica.outstanding.incrementAndGet();
+            replica.requestCount.incrementAndGet();
+
+            Connection timedConnection = timed(connection, replica);
+            borrowedConnections.put(timedConnection, replica);
+            return timedConnection;
+        }
+
+        return primaryHandler.getConnection(dataSource);
+    }
+
+    @Override
+    public void releaseConnection(Connection connection, DataSource dataSource) {
+        if (connection == null) {
+            return;
+        }
+
+        Replica replica = borrowedConnections.remove(connection);
+        if (replica == null) {
+            primaryHandler.releaseConnection(connection, dataSource);
+            return;
+        }
+
+        replica.outstanding.decrementAndGet();
+        DbUtils.closeQuietly(connection);
+    }
+
+    /**
+     * 记录从库语句的执行耗时,平均耗时超过阈值时暂时移出该从库
+     */
+    protected void onExecuted(Replica replica, long elapsed) {
+        replica.recordLatency(elapsed);
+
+        if (slowThresholdMillis > 0 && replica.getAverageLatencyMillis() > slowThresholdMillis) {
+            log.warn("Replica is too slow(averageLatency={}ms), replica is removed for {}ms",
+                    replica.getAverageLatencyMillis(), penaltyMillis);
+            replica.markDown(System.currentTimeMillis() + penaltyMillis);
+        }
+    }
+
+    /**
+     * 包装从库连接,统计其创建的语句的执行耗时
+     */
+    private Connection timed(final Connection connection, final Replica replica) {
+        return ProxyFactory.instance().createConnection(new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+
+                // 作为borrowedConnections的键,按实例比较
+                if (name.equals("hashCode") && args == null) {
+                    return System.identityHashCode(proxy);
+                }
+                if (name.equals("equals") && args != null && args.length == 1) {
+                    return proxy == args[0];
+                }
+
+                Object result = invokeTarget(connection, method, args);
+                if (result instanceof Statement) {
+                    return timed((Statement) result, method.getReturnType(), replica);
+                }
+
+                return result;
+            }
+        });
+    }
+
+    private Object timed(final Statement statement, Class<?> type, final Replica replica) {
+        InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (!method.getName().startsWith("execute")) {
+                    return invokeTarget(statement, method, args);
+                }
+
+                long start = System.currentTimeMillis();
+                try {
+                    return invokeTarget(statement, method, args);
+                } finally {
+                    onExecuted(replica, System.currentTimeMillis() - start);
+                }
+            }
+        };
+
+        if (type == CallableStatement.class) {
+            return ProxyFactory.instance().createCallableStatement(handler);
+        } else if (type == PreparedStatement.class) {
+            return ProxyFactory.instance().createPreparedStatement(handler);
+        }
+
+        return ProxyFactory.instance().createStatement(handler);
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * 选择一个可用的从库
+     *
+     * @return 从库,若均不可用则返回null
+     */
+    protected Replica select(long now) {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+
+        if (balance == Balance.LEAST_OUTSTANDING) {
+            Replica selected = null;
+            for (Replica replica : replicas) {
+                if (replica.isAvailable(now) &&
+                        (selected == null || replica.outstanding.get() < selected.outstanding.get())) {
+                    selected = replica;
+                }
+            }
+            return selected;
+        }
+
+        int start = nextIndex.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.isAvailable(now)) {
+                return replica;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 判断当前线程是否存在事务,主库连接处理器可判断事务状态时以其为准
+     */
+    @Override
+    public boolean isInTransaction() {
+        if (primaryHandler instanceof TransactionAwareConnectionHandler) {
+            return ((TransactionAwareConnectionHandler) primaryHandler).isInTransaction();
+        }
+
+        return Transactions.get() != null;
+    }
+
+    @Override
+    public void afterCommit(Runnable action) {
+        if (primaryHandler instanceof TransactionAwareConnectionHandler) {
+            ((TransactionAwareConnectionHandler) primaryHandler).afterCommit(action);
+            return;
+        }
+
+        Transaction transaction = Transactions.get();
+        if (transaction != null) {
+            transaction.afterCommit(action);
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public ReplicaConnectionHandler setSlowThresholdMillis(long slowThresholdMillis) {
+        this.slowThresholdMillis = slowThresholdMillis;
+        return this;
+    }
+
+    public ReplicaConnectionHandler setPenaltyMillis(long penaltyMillis) {
+        this.penaltyMillis = penaltyMillis;
+        return this;
+    }
+
+    /**
+     * 从库状态
+     */
+    public static class Replica {
+
+        /**
+         * 平均执行耗时的平滑系数,越大则越偏向最近的耗时
+         */
+        private static final double LATENCY_WEIGHT = 0.2;
+
+        private final DataSource dataSource;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private final AtomicLong requestCount = new AtomicLong();
+
+        private volatile double averageLatencyMillis;
+
+        private volatile long downUntil;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        synchronized void recordLatency(long elapsed) {
+            averageLatencyMillis = averageLatencyMillis * (1 - LATENCY_WEIGHT) + elapsed * LATENCY_WEIGHT;
+        }
+
+        void markDown(long downUntil) {
+            this.downUntil = downUntil;
+            // 重新加入后按新的耗时重新计算
+            this.averageLatencyMillis = 0;
+        }
+
+        public boolean isAvailable(long now) {
+            return downUntil <= now;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        public long getRequestCount() {
+            return requestCount.get();
+        }
+
+        public double getAverageLatencyMillis() {
+            return averageLatencyMillis;
+        }
+    }
+}
\ No newline at end of file
@@ -1,6 +1,8 @@
 package org.team4u.dao.transaction;
 
 import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
@@ -9,7 +11,7 @@ import java.sql.SQLException;
 /**
  * @author Jay Wu
  */
-public enum SpringConnectionHandler implements ConnectionHandler {
+public enum SpringConnectionHandler implements TransactionAwareConnectionHandler {
 
     INSTANCE;
 
@@ -22,4 +24,23 @@ public enum SpringConnectionHandler implements ConnectionHandler {
     public void releaseConnection(Connection connection, DataSource dataSource) {
         DataSourceUtils.releaseConnection(connection, dataSource);
     }
+
+    @Override
+    public boolean isInTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    @Override
+    public void afterCommit(final Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
\ No newline at end of file
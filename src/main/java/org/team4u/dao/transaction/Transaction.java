@@ -11,7 +11,9 @@ import javax.sql.DataSource;
 import java.io.Closeable;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -25,6 +27,7 @@ public class Transaction implements Closeable {
     protected final AtomicInteger retain;
     protected final Stack<Integer> retainBeginStack;
     protected final Map<DataSource, Resource> resources;
+    protected final List<Runnable> afterCommitActions;
     protected int level;
 
     public Transaction(int level) {
@@ -33,6 +36,7 @@ public class Transaction implements Closeable {
         retain = new AtomicInteger(0);
         retainBeginStack = new Stack<Integer>();
         resources = new HashMap<DataSource, Resource>();
+        afterCommitActions = new ArrayList<Runnable>();
     }
 
     public void begin() {
@@ -56,11 +60,19 @@ public class Transaction implements Closeable {
                 }
             }
         });
+
+        if (retain.get() == 0) {
+            runAfterCommitActions();
+        }
     }
 
     public void rollback() {
         retain.set(retainBeginStack.pop());
 
+        if (retain.get() == 0) {
+            afterCommitActions.clear();
+        }
+
         execute(new Callback<Resource>() {
             @Override
             public void invoke(Resource resource) {
@@ -104,10 +116,31 @@ public class Transaction implements Closeable {
         return resource.getConnection();
     }
 
+    /**
+     * 注册最外层事务提交后执行的动作,事务回滚时将被丢弃
+     */
+    public void afterCommit(Runnable action) {
+        afterCommitActions.add(action);
+    }
+
     public boolean shouldClose() {
         return retain.get() == 0;
     }
 
+    protected void runAfterCommitActions() {
+        List<Runnable> actions = new ArrayList<Runnable>(afterCommitActions);
+        afterCommitActions.clear();
+
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (Exception e) {
+                // 数据已提交,动作失败不影响事务结果
+                log.warn(e, "After commit action failed(action={})", action);
+            }
+        }
+    }
+
     protected void execute(Callback<Resource> callback) {
         if (retain.get() == 0) {
             ComboException ce = new ComboException();
@@ -0,0 +1,21 @@
+package org.team4u.dao.transaction;
+
+/**
+ * 可判断当前线程是否处于事务中的ConnectionHandler
+ * <p>
+ * 未实现该接口的ConnectionHandler无法确定事务状态,SimpleDao将不使用实体缓存及查询结果缓存
+ *
+ * @author Jay Wu
+ */
+public interface TransactionAwareConnectionHandler extends ConnectionHandler {
+
+    /**
+     * 当前线程是否处于事务中
+     */
+    boolean isInTransaction();
+
+    /**
+     * 注册当前事务提交后执行的操作,不处于事务中时忽略
+     */
+    void afterCommit(Runnable action);
+}
\ No newline at end of file
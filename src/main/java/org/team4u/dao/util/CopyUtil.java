@@ -0,0 +1,171 @@
+package org.team4u.dao.util;
+
+import cn.hutool.core.lang.Assert;
+import org.team4u.kit.core.error.ExceptionUtil;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 查询结果拷贝工具,用于缓存时隔离调用方的修改
+ *
+ * @author Jay Wu
+ */
+public class CopyUtil {
+
+    private static final Map<Class<?>, Field[]> fieldsCache = new ConcurrentHashMap<Class<?>, Field[]>();
+
+    private static final Map<Class<?>, Constructor<?>> constructorsCache =
+            new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
+    /**
+     * 拷贝查询结果
+     * <p>
+     * 不可变值直接返回,集合及Map拷贝其元素,实体等对象浅拷贝所有非静态字段
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(T value) {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+
+        if (value instanceof Date) {
+            return (T) ((Date) value).clone();
+        }
+
+        if (value instanceof Collection) {
+            List<Object> list = new ArrayList<Object>(((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                list.add(copy(element));
+            }
+            return (T) list;
+        }
+
+        if (value instanceof Map) {
+            return (T) copyMap((Map<Object, Object>) value);
+        }
+
+        return copyFields(value);
+    }
+
+    /**
+     * 是否为不可变值
+     */
+    public static boolean isImmutable(Object value) {
+        return value instanceof String
+                || value instanceof Number
+                || value instanceof Boolean
+                || value instanceof Character
+                || value instanceof Enum;
+    }
+
+    /**
+     * 校验类型的值是否可拷贝,注册缓存时调用,避免读取缓存时才失败
+     * <p>
+     * 实体等对象需有无参构造函数,且不能包含非静态的final字段(拷贝时无法赋值)
+     *
+     * @throws IllegalArgumentException 无法拷贝
+     */
+    public static void checkCopyable(Class<?> type) {
+        if (type.isPrimitive()
+                || String.class.isAssignableFrom(type)
+                || Number.class.isAssignableFrom(type)
+                || Boolean.class == type
+                || Character.class == type
+                || Enum.class.isAssignableFrom(type)
+                || Date.class.isAssignableFrom(type)
+                || Collection.class.isAssignableFrom(type)
+                || Map.class.isAssignableFrom(type)) {
+            return;
+        }
+
+        Assert.isTrue(!type.isArray() && !type.isInterface() && !Modifier.isAbstract(type.getModifiers()),
+                "Not copyable class:" + type);
+        getConstructor(type);
+
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                Assert.isTrue(Modifier.isStatic(field.getModifiers()) || !Modifier.isFinal(field.getModifiers()),
+                        "Final field is not copyable:" + field);
+            }
+        }
+    }
+
+    /**
+     * 获取类及其父类的所有非静态、非final字段
+     */
+    public static Field[] getFields(Class<?> type) {
+        Field[] fields = fieldsCache.get(type);
+        if (fields != null) {
+            return fields;
+        }
+
+        List<Field> result = new ArrayList<Field>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                    field.setAccessible(true);
+                    result.add(field);
+                }
+            }
+        }
+
+        fields = result.toArray(new Field[result.size()]);
+        fieldsCache.put(type, fields);
+        return fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> copyMap(Map<Object, Object> map) {
+        Map<Object, Object> copy;
+        try {
+            // 保留如忽略大小写等Map自身的特性
+            copy = map.getClass().newInstance();
+        } catch (Exception e) {
+            copy = new LinkedHashMap<Object, Object>(map.size());
+        }
+
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            copy.put(entry.getKey(), copy(entry.getValue()));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T copyFields(T value) {
+        try {
+            T copy = (T) getConstructor(value.getClass()).newInstance();
+            for (Field field : getFields(value.getClass())) {
+                field.set(copy, field.get(value));
+            }
+            return copy;
+        } catch (Exception e) {
+            throw ExceptionUtil.toRuntimeException(e);
+        }
+    }
+
+    private static Constructor<?> getConstructor(Class<?> type) {
+        Constructor<?> constructor = constructorsCache.get(type);
+        if (constructor != null) {
+            return constructor;
+        }
+
+        try {
+            constructor = type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("No default constructor:" + type);
+        }
+
+        constructor.setAccessible(true);
+        constructorsCache.put(type, constructor);
+        return constructor;
+    }
+}
\ No newline at end of file
@@ -1,40 +1,207 @@
 package org.team4u.dao.util;
 
 import cn.hutool.core.util.StrUtil;
+import org.team4u.kit.core.error.ExceptionUtil;
 import org.team4u.kit.core.util.MapExUtil;
+import org.team4u.sql.builder.entity.Entity;
 
+import java.lang.reflect.Field;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Jay Wu
  */
 public class DbUtil {
 
-    @SuppressWarnings("unchecked")
+    private static final int MAX_COLUMN_KEYS_CACHE_SIZE = 1024;
+
+    private static final Map<ColumnLabels, String[]> columnKeysCache = new ConcurrentHashMap<ColumnLabels, String[]>();
+
     public static <T extends Map<String, Object>> T toMap(Class<T> mapClass,
                                                           ResultSet rs,
                                                           boolean camelCase) throws SQLException {
+        return toMap(mapClass, rs, getColumnKeys(rs.getMetaData(), camelCase));
+    }
+
+    /**
+     * 使用getColumnKeys获取的列名将当前行转换为Map,逐行转换时无需重复处理列名
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Map<String, Object>> T toMap(Class<T> mapClass,
+                                                          ResultSet rs,
+                                                          String[] columnKeys) throws SQLException {
         T map = (T) MapExUtil.<String, Object>newInstance(mapClass);
-        ResultSetMetaData rsmd = rs.getMetaData();
+
+        for (int i = 0; i < columnKeys.length; i++) {
+            map.put(columnKeys[i], rs.getObject(i + 1));
+        }
+
+        return map;
+    }
+
+    /**
+     * 获取各列作为Map键的名称,即小写或驼峰形式的列名
+     * <p>
+     * 结果按列名及转换方式缓存,返回的数组为共享实例,不可修改
+     */
+    public static String[] getColumnKeys(ResultSetMetaData rsmd, boolean camelCase) throws SQLException {
         int cols = rsmd.getColumnCount();
+        String[] labels = new String[cols];
 
         for (int i = 1; i <= cols; i++) {
             String columnName = rsmd.getColumnLabel(i);
             if (null == columnName || 0 == columnName.length()) {
                 columnName = rsmd.getColumnName(i);
             }
+            labels[i - 1] = columnName;
+        }
 
-            columnName = columnName.toLowerCase();
+        ColumnLabels key = new ColumnLabels(labels, camelCase);
+        String[] columnKeys = columnKeysCache.get(key);
+        if (columnKeys != null) {
+            return columnKeys;
+        }
+
+        columnKeys = new String[cols];
+        for (int i = 0; i < cols; i++) {
+            String columnName = labels[i].toLowerCase();
 
             if (camelCase) {
                 columnName = StrUtil.toCamelCase(columnName);
             }
-            map.put(columnName, rs.getObject(i));
+            columnKeys[i] = columnName.intern();
         }
 
-        return map;
+        if (columnKeysCache.size() < MAX_COLUMN_KEYS_CACHE_SIZE) {
+            columnKeysCache.put(key, columnKeys);
+        }
+        return columnKeys;
+    }
+
+    /**
+     * 获取小写的数据库产品名称,如mysql、postgresql
+     */
+    public static String getDatabaseProductName(Connection connection) throws SQLException {
+        String productName = connection.getMetaData().getDatabaseProductName();
+        return productName == null ? "" : productName.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * 查找SQL中位于最外层的关键字,忽略括号、引号内的内容及大小写
+     *
+     * @param keyword 关键字,多个单词以空格分隔,如ORDER BY
+     * @return 关键字的起始下标,未找到时返回-1
+     */
+    public static int indexOfKeyword(String sql, String keyword) {
+        String[] words = keyword.split(" ");
+        int depth = 0;
+
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = sql.indexOf(c, i + 1);
+                if (end < 0) {
+                    return -1;
+                }
+                i = end;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && (i == 0 || !isIdentifierPart(sql.charAt(i - 1)))) {
+                if (matchWords(sql, i, words)) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean matchWords(String sql, int start, String[] words) {
+        int i = start;
+
+        for (int w = 0; w < words.length; w++) {
+            if (w > 0) {
+                int begin = i;
+                while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (i == begin) {
+                    return false;
+                }
+            }
+
+            String word = words[w];
+            if (!sql.regionMatches(true, i, word, 0, word.length())) {
+                return false;
+            }
+
+            i += word.length();
+            if (i < sql.length() && isIdentifierPart(sql.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+    }
+
+    /**
+     * 获取实体对象指定列的属性值
+     */
+    public static Object getColumnValue(Entity.Column column, Object entity) {
+        Field field = column.getProperty();
+
+        try {
+            if (!field.isAccessible()) {
+                field.setAccessible(true);
+            }
+            return field.get(entity);
+        } catch (IllegalAccessException e) {
+            throw ExceptionUtil.toRuntimeException(e);
+        }
+    }
+
+    private static class ColumnLabels {
+
+        private final String[] labels;
+        private final boolean camelCase;
+        private final int hashCode;
+
+        ColumnLabels(String[] labels, boolean camelCase) {
+            this.labels = labels;
+            this.camelCase = camelCase;
+            hashCode = 31 * Arrays.hashCode(labels) + (camelCase ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ColumnLabels)) {
+                return false;
+            }
+
+            ColumnLabels that = (ColumnLabels) o;
+            return hashCode == that.hashCode && camelCase == that.camelCase && Arrays.equals(labels, that.labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
     }
 }
\ No newline at end of file
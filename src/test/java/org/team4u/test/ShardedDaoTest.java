@@ -0,0 +1,219 @@
+package org.team4u.test;
+
+import cn.hutool.core.collection.CollectionUtil;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.team4u.dao.core.Dao;
+import org.team4u.dao.core.ResultIterator;
+import org.team4u.dao.core.SimpleDao;
+import org.team4u.dao.shard.HashShardStrategy;
+import org.team4u.dao.shard.MergedResultIterator;
+import org.team4u.dao.shard.ShardedDao;
+import org.team4u.kit.core.lang.Pager;
+import org.team4u.sql.builder.Sql;
+import org.team4u.sql.builder.util.SqlBuilders;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author Jay Wu
+ */
+public class ShardedDaoTest {
+
+    private static final Comparator<TestEntity> NAME_ORDER = new Comparator<TestEntity>() {
+        @Override
+        public int compare(TestEntity o1, TestEntity o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private static List<SimpleDao> shards;
+
+    private static ShardedDao shardedDao;
+
+    @BeforeClass
+    public static void before() {
+        shards = new ArrayList<SimpleDao>();
+        for (int i = 0; i < 2; i++) {
+            SimpleDao shard = new SimpleDao(TestUtil.createDataSource("jdbc:hsqldb:mem:shard" + i));
+            TestUtil.initTables(shard);
+            shards.add(shard);
+        }
+
+        shardedDao = new ShardedDao(shards, "name");
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        shardedDao.shutdown();
+    }
+
+    @Test
+    public void routeByShardKey() {
+        List<TestEntity> entities = createEntities(6);
+        Assert.assertArrayEquals(new int[]{1, 1, 1, 1, 1, 1}, shardedDao.insert(entities));
+
+        for (TestEntity entity : entities) {
+            int shardIndex = HashShardStrategy.INSTANCE.shard(entity.getName(), shards.size());
+            Assert.assertSame(shards.get(shardIndex), shardedDao.shard(entity.getName()));
+            Assert.assertSame(shards.get(shardIndex), shardedDao.shardOf(entity));
+
+            Assert.assertEquals(entity, shards.get(shardIndex).queryWithPkForObject(TestEntity.class, entity.getId()));
+            Assert.assertNull(shards.get(1 - shardIndex).queryWithPkForObject(TestEntity.class, entity.getId()));
+        }
+
+        Assert.assertEquals(6, shardedDao.count(SqlBuilders.select(TestEntity.class).create()));
+    }
+
+    @Test
+    public void queryForListWithPager() {
+        List<TestEntity> entities = createEntities(10);
+        shardedDao.insert(entities);
+        Sql sql = SqlBuilders.sql("select * from client order by name").create();
+
+        // 每个分片均有数据,归并后仍按name排序
+        for (SimpleDao shard : shards) {
+            Assert.assertTrue(shard.count(SqlBuilders.select(TestEntity.class).create()) > 0);
+        }
+
+        List<TestEntity> page = shardedDao.queryForList(TestEntity.class, sql, NAME_ORDER,
+                new Pager().setPageSize(3).setPageNumber(2));
+        Assert.assertEquals(entities.subList(3, 6), page);
+
+        page = shardedDao.queryForList(TestEntity.class, sql, NAME_ORDER,
+                new Pager().setPageSize(3).setPageNumber(4));
+        Assert.assertEquals(entities.subList(9, 10), page);
+
+        ResultIterator<TestEntity> it = shardedDao.stream(TestEntity.class, sql, NAME_ORDER);
+        List<TestEntity> streamed = new ArrayList<TestEntity>();
+        while (it.hasNext()) {
+            streamed.add(it.next());
+        }
+        Assert.assertTrue(it.isClosed());
+        Assert.assertEquals(entities, streamed);
+    }
+
+    @Test
+    public void closeAllIteratorsWhenShardFails() {
+        ResultIterator<String> healthy = iterator(Arrays.asList("a", "c", "e").iterator());
+        ResultIterator<String> broken = new ResultIterator<String>() {
+            private int fetched;
+
+            @Override
+            protected boolean fetch() throws SQLException {
+                if (fetched++ > 0) {
+                    throw new SQLException("Connection reset");
+                }
+                return true;
+            }
+
+            @Override
+            protected String read() {
+                return "b";
+            }
+        };
+
+        List<ResultIterator<String>> iterators = CollectionUtil.newArrayList(healthy, broken);
+        MergedResultIterator<String> it = new MergedResultIterator<String>(iterators, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return o1.compareTo(o2);
+            }
+        });
+
+        try {
+            while (it.hasNext()) {
+                it.next();
+            }
+            Assert.fail("Shard failure is not propagated");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(healthy.isClosed());
+            Assert.assertTrue(broken.isClosed());
+            Assert.assertTrue(it.isClosed());
+        }
+    }
+
+    @Test
+    public void closeOpenedShardsWhenStreamFails() {
+        shardedDao.insert(createEntities(2));
+
+        final List<ResultIterator<?>> opened = new ArrayList<ResultIterator<?>>();
+        Dao recordingShard = (Dao) Proxy.newProxyInstance(Dao.class.getClassLoader(), new Class[]{Dao.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        try {
+                            Object result = method.invoke(shards.get(0), args);
+                            if (result instanceof ResultIterator) {
+                                opened.add((ResultIterator<?>) result);
+                            }
+                            return result;
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                });
+        Dao brokenShard = (Dao) Proxy.newProxyInstance(Dao.class.getClassLoader(), new Class[]{Dao.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        throw new IllegalStateException("Shard is down");
+                    }
+                });
+
+        ShardedDao dao = new ShardedDao(CollectionUtil.newArrayList(recordingShard, brokenShard), "name");
+        try {
+            dao.stream(TestEntity.class, SqlBuilders.sql("select * from client order by name").create(), NAME_ORDER);
+            Assert.fail("Shard failure is not propagated");
+        } catch (RuntimeException e) {
+            Assert.assertEquals(1, opened.size());
+            Assert.assertTrue(opened.get(0).isClosed());
+        } finally {
+            dao.shutdown();
+        }
+    }
+
+    @After
+    public void after() {
+        for (SimpleDao shard : shards) {
+            shard.execute(SqlBuilders.delete(TestEntity.class).create());
+        }
+    }
+
+    /**
+     * 创建按name排序的实体
+     */
+    private List<TestEntity> createEntities(int count) {
+        List<TestEntity> entities = new ArrayList<TestEntity>(count);
+        for (int i = 0; i < count; i++) {
+            entities.add(new TestEntity().setName("n" + i).setRemark("y"));
+        }
+        return entities;
+    }
+
+    private static <T> ResultIterator<T> iterator(final Iterator<T> it) {
+        return new ResultIterator<T>() {
+            @Override
+            protected boolean fetch() {
+                return it.hasNext();
+            }
+
+            @Override
+            protected T read() {
+                return it.next();
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -3,12 +3,31 @@ package org.team4u.test;
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.lang.Dict;
 import cn.hutool.core.util.RandomUtil;
+import org.apache.commons.dbutils.BeanProcessor;
+import org.apache.commons.dbutils.StatementConfiguration;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.team4u.dao.core.AsyncDao;
+import org.team4u.dao.core.BatchLoader;
+import org.team4u.dao.core.ConnectionCallback;
 import org.team4u.dao.core.Dao;
+import org.team4u.dao.core.EntityCache;
+import org.team4u.dao.core.KeysetPager;
+import org.team4u.dao.core.LruCache;
+import org.team4u.dao.core.PooledDataSource;
+import org.team4u.dao.core.QueryCache;
+import org.team4u.dao.core.ResultIterator;
+import org.team4u.dao.core.SimpleAsyncDao;
 import org.team4u.dao.core.SimpleDao;
+import org.team4u.dao.core.SimpleDataSource;
+import org.team4u.dao.resultset.handler.ColumnarResult;
+import org.team4u.dao.resultset.handler.RowMap;
+import org.team4u.dao.transaction.ConnectionHandler;
+import org.team4u.dao.transaction.DefaultConnectionHandler;
+import org.team4u.dao.transaction.ReplicaConnectionHandler;
+import org.team4u.dao.transaction.TransactionAwareConnectionHandler;
 import org.team4u.dao.transaction.Transactions;
 import org.team4u.kit.core.action.Callback;
 import org.team4u.kit.core.action.Function;
@@ -18,9 +37,14 @@ import org.team4u.sql.builder.Sql;
 import org.team4u.sql.builder.entity.builder.EntitySelectSqlBuilder;
 import org.team4u.sql.builder.util.SqlBuilders;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 import static org.team4u.test.TestUtil.createAndInitDao;
 import static org.team4u.test.TestUtil.initSqlContent;
@@ -149,6 +173,12 @@ public class SimpleDaoTest {
         tokenEntity.setId(3L);
         Assert.assertEquals(1, dao.delete(tokenEntity));
 
+        List<TestTokenEntity> tokenEntities = CollectionUtil.newArrayList(new TestTokenEntity(), new TestTokenEntity());
+        dao.insert(tokenEntities);
+        Assert.assertEquals(4, tokenEntities.get(0).getId().longValue());
+        Assert.assertEquals(5, tokenEntities.get(1).getId().longValue());
+        Assert.assertEquals(2, dao.delete(tokenEntities).length);
+
         entity.setName("1");
 
         dao.insert(CollectionUtil.newArrayList(entity), "name", false);
@@ -178,6 +208,28 @@ public class SimpleDaoTest {
         Assert.assertEquals(1, dao.delete(entity));
     }
 
+    @Test
+    public void multiRowInsert() {
+        SimpleDao multiRowDao = TestUtil.createDao().setMultiRowInsertSize(2);
+
+        List<TestEntity> entities = new ArrayList<TestEntity>();
+        for (int i = 0; i < 5; i++) {
+            entities.add(new TestEntity().setId("m" + i).setName("name" + i));
+        }
+
+        int[] result = multiRowDao.fastInsert(entities);
+        Assert.assertEquals(5, result.length);
+        for (int i : result) {
+            Assert.assertEquals(1, i);
+        }
+
+        for (TestEntity entity : entities) {
+            Assert.assertEquals(entity, multiRowDao.queryWithPkForObject(TestEntity.class, entity.getId()));
+        }
+
+        Assert.assertEquals(5, multiRowDao.delete(entities).length);
+    }
+
     @Test
     public void update() {
         TestEntity entity = insertEntity(dao);
@@ -323,6 +375,392 @@ public class SimpleDaoTest {
         Assert.assertArrayEquals(new int[]{1, 1}, dao.delete(entities));
     }
 
+    @Test
+    public void stream() {
+        List<TestEntity> entities = CollectionUtil.newArrayList(insertEntity(dao), insertEntity(dao));
+        List<TestEntity> entitiesResult = CollectionUtil.newArrayList();
+
+        ResultIterator<TestEntity> it = dao.stream(SqlBuilders.select(TestEntity.class).where("name", "=", "x"));
+        while (it.hasNext()) {
+            entitiesResult.add(it.next());
+        }
+        Assert.assertTrue(it.isClosed());
+        Assert.assertTrue(entitiesResult.containsAll(entities));
+
+        it = dao.stream(TestEntity.class, SqlBuilders.select(TestEntity.class).create());
+        Assert.assertTrue(it.hasNext());
+        it.close();
+        Assert.assertFalse(it.hasNext());
+
+        Assert.assertArrayEquals(new int[]{1, 1}, dao.delete(entities));
+    }
+
+    @Test
+    public void statementConfiguration() {
+        List<TestEntity> entities = CollectionUtil.newArrayList(insertEntity(dao), insertEntity(dao));
+        Sql sql = SqlBuilders.select(TestEntity.class).where("name", "=", "x").create();
+
+        StatementConfiguration config = new StatementConfiguration.Builder().maxRows(1).queryTimeout(10).build();
+        Assert.assertEquals(1, dao.queryForList(TestEntity.class, sql, null, config).size());
+        Assert.assertEquals(2, dao.queryForList(TestEntity.class, sql).size());
+
+        final List<TestEntity> entitiesResult = CollectionUtil.newArrayList();
+        dao.each(TestEntity.class, sql, null, new Callback<TestEntity>() {
+            @Override
+            public void invoke(TestEntity obj) {
+                entitiesResult.add(obj);
+            }
+        }, config);
+        Assert.assertEquals(1, entitiesResult.size());
+
+        Assert.assertArrayEquals(new int[]{1, 1}, dao.delete(entities));
+    }
+
+    @Test
+    public void eachByKeyset() {
+        List<TestEntity> entities = CollectionUtil.newArrayList(
+                insertEntity(dao), insertEntity(dao), insertEntity(dao));
+        final List<TestEntity> entitiesResult = CollectionUtil.newArrayList();
+
+        KeysetPager pager = new KeysetPager().setPageSize(2);
+        dao.eachByKeyset(SqlBuilders.select(TestEntity.class).where("name", "=", "x"), pager, new Callback<TestEntity>() {
+            @Override
+            public void invoke(TestEntity obj) {
+                entitiesResult.add(obj);
+            }
+        });
+
+        Assert.assertEquals(3, entitiesResult.size());
+        Assert.assertTrue(entitiesResult.containsAll(entities));
+        Assert.assertEquals(entitiesResult.get(2).getId(), pager.getLastKeys()[0]);
+
+        Assert.assertArrayEquals(new int[]{1, 1, 1}, dao.delete(entities));
+    }
+
+    @Test
+    public void countCache() {
+        SimpleDao countDao = TestUtil.createDao().setWindowCount(true).setCountCacheTtl(60 * 1000);
+        List<TestEntity> entities = CollectionUtil.newArrayList(insertEntity(dao), insertEntity(dao));
+        Sql sql = SqlBuilders.select(TestEntity.class).where("name", "=", "x").create();
+
+        Pager pager = new Pager().setPageSize(1).setAutoCount(true);
+        Assert.assertEquals(1, countDao.queryForList(TestEntity.class, sql, pager).size());
+        Assert.assertEquals(2, pager.getRecordCount());
+
+        entities.add(insertEntity(dao));
+        pager = new Pager().setPageSize(1).setPageNumber(2).setAutoCount(true);
+        Assert.assertEquals(1, countDao.queryForList(TestEntity.class, sql, pager).size());
+        Assert.assertEquals(2, pager.getRecordCount());
+
+        countDao.getCountCache().clear();
+        countDao.queryForList(TestEntity.class, sql, pager);
+        Assert.assertEquals(3, pager.getRecordCount());
+
+        Assert.assertArrayEquals(new int[]{1, 1, 1}, dao.delete(entities));
+    }
+
+    @Test
+    public void asyncDao() throws Exception {
+        AsyncDao asyncDao = new SimpleAsyncDao(dao, 2, 10);
+
+        try {
+            TestEntity entity = asyncDao.insert(new TestEntity().setName("x").setRemark("y")).get();
+            Future<TestEntity> entityFuture = asyncDao.queryWithPkForObject(TestEntity.class, entity.getId());
+            Future<Integer> countFuture = asyncDao.count(SqlBuilders.select(TestEntity.class)
+                    .where("id", "=", entity.getId())
+                    .create());
+
+            Assert.assertEquals(entity, entityFuture.get());
+            Assert.assertEquals(1, countFuture.get().intValue());
+            Assert.assertEquals(1, asyncDao.delete(entity).get().intValue());
+        } finally {
+            asyncDao.shutdown();
+        }
+    }
+
+    @Test
+    public void asyncDaoInHandlerTransaction() throws Exception {
+        // 模拟Spring等与线程绑定的事务
+        final ThreadLocal<Boolean> inTransaction = new ThreadLocal<Boolean>();
+        SimpleDao awareDao = new SimpleDao(TestUtil.createDataSource(), new TransactionAwareConnectionHandler() {
+            @Override
+            public Connection getConnection(DataSource dataSource) throws SQLException {
+                return DefaultConnectionHandler.INSTANCE.getConnection(dataSource);
+            }
+
+            @Override
+            public void releaseConnection(Connection connection, DataSource dataSource) {
+                DefaultConnectionHandler.INSTANCE.releaseConnection(connection, dataSource);
+            }
+
+            @Override
+            public boolean isInTransaction() {
+                return Boolean.TRUE.equals(inTransaction.get());
+            }
+
+            @Override
+            public void afterCommit(Runnable action) {
+            }
+        });
+        AsyncDao asyncDao = new SimpleAsyncDao(awareDao, 2, 10);
+        ConnectionCallback<Thread> currentThread = new ConnectionCallback<Thread>() {
+            @Override
+            public Thread doInConnection(Connection connection) throws SQLException {
+                return Thread.currentThread();
+            }
+        };
+
+        try {
+            Assert.assertNotSame(Thread.currentThread(), asyncDao.execute(currentThread).get());
+
+            inTransaction.set(true);
+            Assert.assertSame(Thread.currentThread(), asyncDao.execute(currentThread).get());
+        } finally {
+            inTransaction.remove();
+            asyncDao.shutdown();
+        }
+    }
+
+    @Test
+    public void replicaConnectionHandler() {
+        DataSource dataSource = TestUtil.createDataSource();
+        ReplicaConnectionHandler connectionHandler = new ReplicaConnectionHandler(
+                CollectionUtil.newArrayList(TestUtil.createDataSource()));
+        final SimpleDao replicaDao = new SimpleDao(dataSource, connectionHandler);
+
+        final TestEntity entity = insertEntity(replicaDao);
+        Assert.assertEquals(entity, replicaDao.queryWithPkForObject(TestEntity.class, entity.getId()));
+        Assert.assertEquals(1, connectionHandler.getReplicas().get(0).getRequestCount());
+
+        Transactions.execute(new Runnable() {
+            @Override
+            public void run() {
+                Assert.assertEquals(entity, replicaDao.queryWithPkForObject(TestEntity.class, entity.getId()));
+            }
+        });
+        Assert.assertEquals(1, connectionHandler.getReplicas().get(0).getRequestCount());
+        Assert.assertEquals(0, connectionHandler.getReplicas().get(0).getOutstanding());
+
+        Assert.assertEquals(1, replicaDao.delete(entity));
+    }
+
+    @Test
+    public void entityCache() {
+        final SimpleDao cachedDao = TestUtil.createDao()
+                .setEntityCache(new EntityCache().register(TestEntity.class, 10, 60 * 1000));
+        final TestEntity entity = insertEntity(cachedDao);
+
+        TestEntity cached = cachedDao.queryWithPkForObject(TestEntity.class, entity.getId());
+        Assert.assertEquals(entity, cached);
+        cached.setName("changed");
+        Assert.assertEquals(entity, cachedDao.queryWithPkForObject(TestEntity.class, entity.getId()));
+
+        LruCache<Object, Object> cache = cachedDao.getEntityCache().getCache(TestEntity.class);
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        Transactions.execute(new Runnable() {
+            @Override
+            public void run() {
+                entity.setName("y");
+                cachedDao.update(entity);
+            }
+        });
+        Assert.assertEquals("y", cachedDao.queryWithPkForObject(TestEntity.class, entity.getId()).getName());
+
+        Assert.assertEquals(1, cachedDao.deleteWithPK(TestEntity.class, entity.getId()));
+        Assert.assertNull(cachedDao.queryWithPkForObject(TestEntity.class, entity.getId()));
+    }
+
+    @Test
+    public void entityCacheWithoutTransactionAwareHandler() {
+        // 无法判断事务状态的ConnectionHandler不使用缓存
+        SimpleDao cachedDao = new SimpleDao(TestUtil.createDataSource(), new ConnectionHandler() {
+            @Override
+            public Connection getConnection(DataSource dataSource) throws SQLException {
+                return DefaultConnectionHandler.INSTANCE.getConnection(dataSource);
+            }
+
+            @Override
+            public void releaseConnection(Connection connection, DataSource dataSource) {
+                DefaultConnectionHandler.INSTANCE.releaseConnection(connection, dataSource);
+            }
+        }).setEntityCache(new EntityCache().register(TestEntity.class, 10, 60 * 1000));
+        TestEntity entity = insertEntity(cachedDao);
+
+        Assert.assertEquals(entity, cachedDao.queryWithPkForObject(TestEntity.class, entity.getId()));
+        Assert.assertEquals(0, cachedDao.getEntityCache().getCache(TestEntity.class).getMissCount());
+
+        Assert.assertEquals(1, cachedDao.delete(entity));
+    }
+
+    @Test
+    public void queryCache() {
+        SimpleDao cachedDao = TestUtil.createDao().setQueryCache(new QueryCache(60 * 1000).register(TestEntity.class));
+        insertEntity(cachedDao);
+        Sql sql = SqlBuilders.select(TestEntity.class).where("name", "=", "x").create();
+
+        List<TestEntity> entities = cachedDao.queryForList(TestEntity.class, sql);
+        Assert.assertEquals(1, entities.size());
+        entities.clear();
+        Assert.assertEquals(1, cachedDao.queryForList(TestEntity.class, sql).size());
+        Assert.assertEquals(1, cachedDao.getQueryCache().getHitCount());
+
+        insertEntity(cachedDao);
+        Assert.assertEquals(2, cachedDao.queryForList(TestEntity.class, sql).size());
+
+        Assert.assertEquals(2, cachedDao.execute(SqlBuilders.delete(TestEntity.class).where("name", "=", "x").create()));
+        Assert.assertEquals(0, cachedDao.queryForList(TestEntity.class, sql).size());
+    }
+
+    @Test
+    public void queryWithPkForList() {
+        List<TestEntity> entities = CollectionUtil.newArrayList(insertEntity(dao), insertEntity(dao), insertEntity(dao));
+        List<String> ids = Arrays.asList(
+                entities.get(2).getId(), "none", entities.get(0).getId(), entities.get(2).getId());
+
+        List<TestEntity> values = dao.queryWithPkForList(TestEntity.class, ids);
+        Assert.assertEquals(Arrays.asList(entities.get(2), entities.get(0)), values);
+
+        Map<Object, TestEntity> valueMap = dao.queryWithPkForMap(TestEntity.class, ids);
+        Assert.assertEquals(2, valueMap.size());
+        Assert.assertEquals(entities.get(0), valueMap.get(entities.get(0).getId()));
+
+        Assert.assertArrayEquals(new int[]{1, 1, 1}, dao.delete(entities));
+    }
+
+    @Test
+    public void batchLoader() throws Exception {
+        TestEntity entity1 = insertEntity(dao);
+        TestEntity entity2 = insertEntity(dao);
+        BatchLoader loader = new BatchLoader(dao);
+
+        Future<TestEntity> future1 = loader.load(TestEntity.class, entity1.getId());
+        Future<TestEntity> future2 = loader.load(TestEntity.class, entity2.getId());
+        Assert.assertSame(future1, loader.load(TestEntity.class, entity1.getId()));
+        Assert.assertNull(loader.load(TestEntity.class, "none").get());
+        Assert.assertTrue(future1.isDone() && future2.isDone());
+        Assert.assertEquals(entity1, future1.get());
+        Assert.assertEquals(entity2, future2.get());
+
+        Assert.assertArrayEquals(new int[]{1, 1}, dao.delete(Arrays.asList(entity1, entity2)));
+        Assert.assertEquals(entity1, loader.get(TestEntity.class, entity1.getId()));
+
+        loader.clear();
+        Assert.assertNull(loader.get(TestEntity.class, entity1.getId()));
+    }
+
+    @Test
+    public void pooledDataSource() throws Exception {
+        PooledDataSource dataSource = new PooledDataSource().setMaxSize(2).setMaxWaitMillis(100);
+        dataSource.setDriverClassName("org.hsqldb.jdbc.JDBCDriver");
+        dataSource.setUrl("jdbc:hsqldb:mem:db");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+
+        try {
+            SimpleDao pooledDao = new SimpleDao(dataSource);
+            TestEntity entity = insertEntity(pooledDao);
+            Assert.assertEquals(entity, pooledDao.queryWithPkForObject(TestEntity.class, entity.getId()));
+            Assert.assertEquals(1, pooledDao.delete(entity));
+            Assert.assertEquals(0, dataSource.getActiveCount());
+
+            Connection connection1 = dataSource.getConnection();
+            Connection connection2 = dataSource.getConnection();
+            try {
+                dataSource.getConnection();
+                Assert.fail();
+            } catch (SQLException e) {
+                Assert.assertEquals(1, dataSource.getTimeoutCount());
+            }
+
+            connection1.close();
+            connection2.close();
+            Assert.assertEquals(2, dataSource.getIdleCount());
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    public void simpleDataSource() throws Exception {
+        SimpleDataSource dataSource = new SimpleDataSource();
+        dataSource.setDriverClassName("org.hsqldb.jdbc.JDBCDriver");
+        dataSource.setUrl("jdbc:hsqldb:mem:db");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+
+        Connection connection1 = dataSource.getConnection();
+        Connection connection2 = dataSource.getConnection();
+        Assert.assertEquals(2, dataSource.getActiveCount());
+        Assert.assertEquals(2, dataSource.getConnectionInfos().size());
+
+        connection1.close();
+        Assert.assertEquals(1, dataSource.getActiveCount());
+
+        dataSource.close();
+        Assert.assertEquals(0, dataSource.getActiveCount());
+        Assert.assertTrue(connection2.isClosed());
+    }
+
+    @Test
+    public void rowMap() {
+        TestEntity entity = insertEntity(dao);
+        Sql sql = SqlBuilders.select(TestEntity.class)
+                .where("id", "=", entity.getId())
+                .create();
+
+        //noinspection unchecked
+        List<Map> mapList = dao.queryForList(Map.class, sql);
+        Assert.assertEquals(1, mapList.size());
+
+        //noinspection unchecked
+        Map<String, Object> map = mapList.get(0);
+        Assert.assertTrue(map instanceof RowMap);
+        Assert.assertEquals(entity.getId(), map.get("client_id"));
+        Assert.assertEquals(entity.getName(), map.get("name"));
+
+        map.put("name", "x");
+        Assert.assertEquals("x", map.get("name"));
+
+        map.put("extra", 1);
+        map.remove("remark");
+        Assert.assertEquals(1, map.get("extra"));
+        Assert.assertFalse(map.containsKey("remark"));
+    }
+
+    @Test
+    public void columnarResult() {
+        insertEntity(dao);
+        insertEntity(dao);
+
+        ColumnarResult result = dao.queryForObject(ColumnarResult.class, SqlBuilders.select(TestEntity.class).create());
+        Assert.assertEquals(2, result.getRowCount());
+
+        ColumnarResult.StringColumn names = result.getStringColumn("name");
+        Assert.assertEquals("x", names.getString(1));
+        Assert.assertEquals(1, names.getDictionary().length);
+
+        result = dao.queryForObject(ColumnarResult.class,
+                SqlBuilders.sql("select count(*) as total from client").create());
+        Assert.assertEquals(2, ((Number) result.getObject(0, "total")).intValue());
+    }
+
+    @Test
+    public void queryForLongs() {
+        insertEntity(dao);
+        insertEntity(dao);
+
+        Sql sql = SqlBuilders.sql("select count(*) from client").create();
+        Assert.assertArrayEquals(new long[]{2}, dao.queryForLongs(sql));
+        Assert.assertArrayEquals(new int[]{2}, dao.queryForInts(sql));
+        Assert.assertArrayEquals(new double[]{2}, dao.queryForDoubles(sql), 0);
+        Assert.assertEquals(Long.valueOf(2), dao.queryForObject(Long.class, sql));
+
+        sql = SqlBuilders.sql("select 1 from client").create();
+        Assert.assertArrayEquals(new int[]{1, 1}, dao.queryForInts(sql));
+    }
+
     @Test
     public void execute() {
         TestEntity entity = insertEntity(dao);
@@ -354,6 +792,50 @@ public class SimpleDaoTest {
         ));
     }
 
+    @Test
+    public void mappingCache() {
+        TestEntity entity = insertEntity(dao);
+        Sql sql = SqlBuilders.select(TestEntity.class)
+                .where("id", "=", entity.getId())
+                .create();
+
+        Assert.assertEquals(entity, dao.queryForObject(TestEntity.class, sql));
+        long hitCount = BeanProcessor.getSharedMappingCache().getHitCount();
+        long missCount = BeanProcessor.getSharedMappingCache().getMissCount();
+
+        Assert.assertEquals(entity, dao.queryForObject(TestEntity.class, sql));
+        Assert.assertEquals(hitCount + 1, BeanProcessor.getSharedMappingCache().getHitCount());
+        Assert.assertEquals(missCount, BeanProcessor.getSharedMappingCache().getMissCount());
+    }
+
+    @Test
+    public void statementCache() {
+        final SimpleDao cachedDao = TestUtil.createDao().setStatementCacheSize(10);
+        final TestEntity entity = insertEntity(cachedDao);
+
+        long hitCount = cachedDao.getQueryRunner().getStatementCacheHitCount();
+        long missCount = cachedDao.getQueryRunner().getStatementCacheMissCount();
+
+        // 事务中的Dao调用共享同一连接,缓存在execute期间保持打开
+        Transactions.execute(new Runnable() {
+            @Override
+            public void run() {
+                cachedDao.execute(new ConnectionCallback<Void>() {
+                    @Override
+                    public Void doInConnection(Connection connection) throws SQLException {
+                        for (int i = 0; i < 3; i++) {
+                            Assert.assertEquals(entity, cachedDao.queryWithPkForObject(TestEntity.class, entity.getId()));
+                        }
+                        return null;
+                    }
+                });
+            }
+        });
+
+        Assert.assertEquals(missCount + 1, cachedDao.getQueryRunner().getStatementCacheMissCount());
+        Assert.assertEquals(hitCount + 2, cachedDao.getQueryRunner().getStatementCacheHitCount());
+    }
+
     @After
     public void after() {
         dao.execute(SqlBuilders.delete(TestEntity.class).create());
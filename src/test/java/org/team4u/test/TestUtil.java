@@ -16,8 +16,12 @@ import javax.sql.DataSource;
 public class TestUtil {
 
     public static DataSource createDataSource() {
+        return createDataSource("jdbc:hsqldb:mem:db");
+    }
+
+    public static DataSource createDataSource(String url) {
         DruidDataSource ds = new DruidDataSource();
-        ds.setUrl("jdbc:hsqldb:mem:db");
+        ds.setUrl(url);
         ds.setUsername("sa");
         ds.setPassword("");
         ds.setInitialSize(1);
@@ -0,0 +1,52 @@
+package org.team4u.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.team4u.dao.core.WindowCount;
+
+/**
+ * @author Jay Wu
+ */
+public class WindowCountTest {
+
+    private static final String COUNT = ", COUNT(*) OVER() AS " + WindowCount.COUNT_COLUMN + " ";
+
+    @Test
+    public void createSelect() {
+        Assert.assertEquals("SELECT id, name" + COUNT + "FROM t WHERE id > 1",
+                WindowCount.createSelect("SELECT id, name FROM t WHERE id > 1"));
+    }
+
+    @Test
+    public void createSelectWithKeywordLikeColumns() {
+        Assert.assertEquals("SELECT id, from_date" + COUNT + "FROM t",
+                WindowCount.createSelect("SELECT id, from_date FROM t"));
+        Assert.assertEquals("SELECT valid_from, id" + COUNT + "FROM t WHERE id > 1",
+                WindowCount.createSelect("SELECT valid_from, id FROM t WHERE id > 1"));
+        Assert.assertEquals("SELECT union_id, minus$, t.except" + COUNT + "FROM t",
+                WindowCount.createSelect("SELECT union_id, minus$, t.except FROM t"));
+    }
+
+    @Test
+    public void createSelectWithQuotedColumns() {
+        Assert.assertEquals("SELECT \"from\", `union`, 'FROM x'" + COUNT + "FROM t",
+                WindowCount.createSelect("SELECT \"from\", `union`, 'FROM x' FROM t"));
+    }
+
+    @Test
+    public void createSelectWithSubquery() {
+        Assert.assertEquals("SELECT id, (SELECT COUNT(*) FROM u UNION SELECT 1 FROM v) c" + COUNT +
+                        "FROM t WHERE id IN (SELECT id FROM w)",
+                WindowCount.createSelect("SELECT id, (SELECT COUNT(*) FROM u UNION SELECT 1 FROM v) c " +
+                        "FROM t WHERE id IN (SELECT id FROM w)"));
+    }
+
+    @Test
+    public void createSelectUnsupported() {
+        Assert.assertNull(WindowCount.createSelect("SELECT DISTINCT name FROM t"));
+        Assert.assertNull(WindowCount.createSelect("SELECT id FROM t UNION SELECT id FROM u"));
+        Assert.assertNull(WindowCount.createSelect("select id from t except select id from u"));
+        Assert.assertNull(WindowCount.createSelect("UPDATE t SET name = 'x'"));
+        Assert.assertNull(WindowCount.createSelect("SELECT 1"));
+    }
+}
\ No newline at end of file